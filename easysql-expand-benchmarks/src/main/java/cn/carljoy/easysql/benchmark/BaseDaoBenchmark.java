@@ -0,0 +1,115 @@
+package cn.carljoy.easysql.benchmark;
+
+import cc.carm.lib.easysql.api.SQLManager;
+import cn.carljoy.easysql.BaseDao;
+import cn.carljoy.easysql.PageResult;
+import cn.carljoy.easysql.QueryWrapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BaseDao 端到端耗时，H2 内存库（MySQL 兼容模式）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BaseDaoBenchmark {
+    // 预先写入的行数
+    private static final int SEEDED_ROWS = 10_000;
+
+    private SQLManager sm;
+    private BaseDao<NarrowRow> dao;
+    private NarrowRow updateTarget;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        sm = BenchDatabase.create("base_dao");
+        dao = new BaseDao<>(NarrowRow.class, sm);
+        List<NarrowRow> seed = new ArrayList<>(SEEDED_ROWS);
+        for (int i = 0; i < SEEDED_ROWS; i++) {
+            seed.add(row(i));
+        }
+        dao.insertBatch(seed);
+        updateTarget = dao.selectOneById(1L);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchDatabase.shutdown(sm);
+    }
+
+    @Benchmark
+    public boolean insert() {
+        return dao.insert(row(ThreadLocalRandom.current().nextInt(SEEDED_ROWS)));
+    }
+
+    /**
+     * 每次调用前重新生成的一批待插入数据，只用于 insertBatch
+     */
+    @State(Scope.Thread)
+    public static class Batch {
+        @Param({"100", "1000"})
+        public int batchSize;
+
+        List<NarrowRow> rows;
+
+        @Setup(Level.Invocation)
+        public void prepare() {
+            rows = new ArrayList<>(batchSize);
+            for (int i = 0; i < batchSize; i++) {
+                rows.add(row(i));
+            }
+        }
+    }
+
+    @Benchmark
+    public int insertBatch(Batch batch) {
+        return dao.insertBatch(batch.rows);
+    }
+
+    @Benchmark
+    public NarrowRow selectOneById() {
+        return dao.selectOneById((long) ThreadLocalRandom.current().nextInt(1, SEEDED_ROWS + 1));
+    }
+
+    @Benchmark
+    public PageResult<NarrowRow> paginate() {
+        QueryWrapper<NarrowRow> query = QueryWrapper.create(NarrowRow.class)
+                .ge("level", 50)
+                .orderByDesc("coins");
+        return dao.paginate(ThreadLocalRandom.current().nextInt(1, 50), 20, query);
+    }
+
+    @Benchmark
+    public boolean updateById() {
+        updateTarget.coins = ThreadLocalRandom.current().nextLong(1_000_000);
+        return dao.updateById(updateTarget);
+    }
+
+    private static NarrowRow row(int i) {
+        NarrowRow row = new NarrowRow();
+        row.name = "player" + i;
+        row.level = i % 100;
+        row.coins = i * 10L;
+        return row;
+    }
+}
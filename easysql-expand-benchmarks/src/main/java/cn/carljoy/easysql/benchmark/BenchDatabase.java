@@ -0,0 +1,23 @@
+package cn.carljoy.easysql.benchmark;
+
+import cc.carm.lib.easysql.EasySQL;
+import cc.carm.lib.easysql.api.SQLManager;
+
+/**
+ * 基准测试使用的内存数据库（H2，MySQL 兼容模式）
+ */
+final class BenchDatabase {
+    private BenchDatabase() {
+    }
+
+    /* 每次创建独立的内存库，避免不同基准之间互相影响 */
+    static SQLManager create(String name) {
+        String url = "jdbc:h2:mem:" + name + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+        return EasySQL.createManager("org.h2.Driver", url, "sa", "");
+    }
+
+    static void shutdown(SQLManager sm) {
+        sm.executeSQL("SHUTDOWN");
+        EasySQL.shutdownManager(sm);
+    }
+}
@@ -0,0 +1,43 @@
+package cn.carljoy.easysql.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Arrays;
+
+/**
+ * 运行全部基准测试并以 JSON 输出结果，便于不同版本之间对比
+ * <p>
+ * 用法：java -jar benchmarks.jar [结果文件] [JMH 参数...]，结果文件默认为 target/jmh-result.json
+ */
+public final class BenchmarkRunner {
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        String resultFile = "target/jmh-result.json";
+        String[] jmhArgs = args;
+        if (args.length > 0 && !args[0].startsWith("-")) {
+            resultFile = args[0];
+            jmhArgs = Arrays.copyOfRange(args, 1, args.length);
+        }
+
+        CommandLineOptions cli = new CommandLineOptions(jmhArgs);
+        OptionsBuilder builder = new OptionsBuilder();
+        builder.parent(cli);
+        if (cli.getIncludes().isEmpty()) {
+            // 未通过参数指定时运行全部基准测试
+            builder.include(BenchmarkRunner.class.getPackageName() + ".*Benchmark");
+        }
+        Options options = builder
+                .resultFormat(ResultFormatType.JSON)
+                .result(resultFile)
+                .build();
+        new Runner(options).run();
+    }
+}
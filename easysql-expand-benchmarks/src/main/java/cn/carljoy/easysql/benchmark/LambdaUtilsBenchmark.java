@@ -0,0 +1,33 @@
+package cn.carljoy.easysql.benchmark;
+
+import cn.carljoy.easysql.LambdaUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LambdaUtils.getColumnName 的耗时（缓存命中后）
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LambdaUtilsBenchmark {
+
+    @Benchmark
+    public String plainColumn() {
+        return LambdaUtils.getColumnName(NarrowRow::getLevel);
+    }
+
+    @Benchmark
+    public String renamedColumn() {
+        return LambdaUtils.getColumnName(NarrowRow::getCreatedAt);
+    }
+}
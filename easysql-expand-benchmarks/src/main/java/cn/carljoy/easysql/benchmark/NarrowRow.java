@@ -0,0 +1,49 @@
+package cn.carljoy.easysql.benchmark;
+
+import cn.carljoy.easysql.annotation.Column;
+import cn.carljoy.easysql.annotation.Id;
+import cn.carljoy.easysql.annotation.Table;
+
+import java.sql.Timestamp;
+
+/**
+ * 5 列的窄表实体
+ */
+@Table("bench_narrow")
+public class NarrowRow {
+    @Id
+    @Column(type = "BIGINT", nullable = false, autoIncrement = true)
+    public Long id;
+
+    @Column(type = "VARCHAR(32)")
+    public String name;
+
+    @Column
+    public Integer level;
+
+    @Column
+    public Long coins;
+
+    @Column(name = "created_at", type = "TIMESTAMP")
+    public Timestamp createdAt;
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Integer getLevel() {
+        return level;
+    }
+
+    public Long getCoins() {
+        return coins;
+    }
+
+    public Timestamp getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,73 @@
+package cn.carljoy.easysql.benchmark;
+
+import cc.carm.lib.easysql.api.SQLManager;
+import cc.carm.lib.easysql.api.builder.TableQueryBuilder;
+import cn.carljoy.easysql.CompiledQuery;
+import cn.carljoy.easysql.QueryWrapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * QueryWrapper 生成 SQL 与条件的耗时，包含创建包装器本身
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryWrapperBenchmark {
+    private SQLManager sm;
+
+    @Setup
+    public void setup() {
+        sm = BenchDatabase.create("query_wrapper");
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchDatabase.shutdown(sm);
+    }
+
+    /* 5 个条件，其中一个为 10 个值的 IN */
+    private static QueryWrapper<NarrowRow> wrapper() {
+        return QueryWrapper.create(NarrowRow.class)
+                .eq("name", "player1")
+                .ge("level", 10)
+                .lt("coins", 100000L)
+                .in("id", 1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L)
+                .like(NarrowRow::getName, "player%")
+                .orderByDesc("level");
+    }
+
+    @Benchmark
+    public String buildWhereClause() {
+        List<Object> params = new ArrayList<>();
+        return wrapper().buildWhereClause(params);
+    }
+
+    @Benchmark
+    public TableQueryBuilder applyConditions() {
+        TableQueryBuilder builder = sm.createQuery().inTable("bench_narrow");
+        wrapper().applyConditions(builder);
+        return builder;
+    }
+
+    @Benchmark
+    public CompiledQuery<NarrowRow> compile() {
+        return wrapper().page(3, 20).compile();
+    }
+}
@@ -0,0 +1,102 @@
+package cn.carljoy.easysql.benchmark;
+
+import cn.carljoy.easysql.RowMapper;
+import org.h2.tools.SimpleResultSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RowMapper.toList 在不同行数、列数和映射引擎下的耗时
+ * 使用内存结果集，只测量映射本身
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RowMapperBenchmark {
+    @Param({"1", "100", "10000"})
+    public int rows;
+
+    @Param({"NARROW", "WIDE"})
+    public String shape;
+
+    @Param({"REFLECTIVE", "GENERATED"})
+    public RowMapper.Engine engine;
+
+    private SimpleResultSet resultSet;
+    private Class<?> type;
+
+    @Setup
+    public void setup() {
+        RowMapper.setEngine(engine);
+        resultSet = new SimpleResultSet();
+        resultSet.setAutoClose(false);
+        if ("NARROW".equals(shape)) {
+            type = NarrowRow.class;
+            resultSet.addColumn("id", Types.BIGINT, 19, 0);
+            resultSet.addColumn("name", Types.VARCHAR, 32, 0);
+            resultSet.addColumn("level", Types.INTEGER, 10, 0);
+            resultSet.addColumn("coins", Types.BIGINT, 19, 0);
+            resultSet.addColumn("created_at", Types.TIMESTAMP, 26, 6);
+            Timestamp now = new Timestamp(System.currentTimeMillis());
+            for (int i = 0; i < rows; i++) {
+                resultSet.addRow((long) i, "player" + i, i % 100, i * 10L, now);
+            }
+        } else {
+            type = WideRow.class;
+            resultSet.addColumn("id", Types.BIGINT, 19, 0);
+            for (int c = 1; c < 20; c++) {
+                resultSet.addColumn("col" + c, WIDE_TYPES[(c - 1) % WIDE_TYPES.length], 64, 0);
+            }
+            for (int i = 0; i < rows; i++) {
+                Object[] row = new Object[20];
+                row[0] = (long) i;
+                for (int c = 1; c < 20; c++) {
+                    row[c] = wideValue(c, i);
+                }
+                resultSet.addRow(row);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<?> toList() throws SQLException {
+        resultSet.beforeFirst();
+        return RowMapper.toList(resultSet, type);
+    }
+
+    private static final int[] WIDE_TYPES = {Types.VARCHAR, Types.INTEGER, Types.BIGINT, Types.BOOLEAN, Types.DOUBLE};
+
+    /* 与 WideRow 字段类型一致的测试值 */
+    private static Object wideValue(int column, int row) {
+        switch ((column - 1) % WIDE_TYPES.length) {
+            case 0:
+                return "value" + row;
+            case 1:
+                return row;
+            case 2:
+                return (long) row * column;
+            case 3:
+                return row % 2 == 0;
+            default:
+                return row / 3.0;
+        }
+    }
+}
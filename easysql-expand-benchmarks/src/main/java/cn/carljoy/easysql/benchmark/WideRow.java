@@ -0,0 +1,72 @@
+package cn.carljoy.easysql.benchmark;
+
+import cn.carljoy.easysql.annotation.Column;
+import cn.carljoy.easysql.annotation.Id;
+import cn.carljoy.easysql.annotation.Table;
+
+/**
+ * 20 列的宽表实体
+ */
+@Table("bench_wide")
+public class WideRow {
+    @Id
+    @Column(type = "BIGINT", nullable = false, autoIncrement = true)
+    public Long id;
+
+    @Column(type = "VARCHAR(64)")
+    public String col1;
+
+    @Column
+    public Integer col2;
+
+    @Column
+    public Long col3;
+
+    @Column
+    public Boolean col4;
+
+    @Column(type = "DOUBLE")
+    public Double col5;
+
+    @Column(type = "VARCHAR(64)")
+    public String col6;
+
+    @Column
+    public Integer col7;
+
+    @Column
+    public Long col8;
+
+    @Column
+    public Boolean col9;
+
+    @Column(type = "DOUBLE")
+    public Double col10;
+
+    @Column(type = "VARCHAR(64)")
+    public String col11;
+
+    @Column
+    public Integer col12;
+
+    @Column
+    public Long col13;
+
+    @Column
+    public Boolean col14;
+
+    @Column(type = "DOUBLE")
+    public Double col15;
+
+    @Column(type = "VARCHAR(64)")
+    public String col16;
+
+    @Column
+    public Integer col17;
+
+    @Column
+    public Long col18;
+
+    @Column
+    public Boolean col19;
+}
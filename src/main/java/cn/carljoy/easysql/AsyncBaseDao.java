@@ -0,0 +1,353 @@
+package cn.carljoy.easysql;
+
+import cc.carm.lib.easysql.api.SQLManager;
+import com.zaxxer.hikari.HikariDataSource;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 异步 DAO，将 {@link BaseDao} 的操作提交到执行器并返回 {@link CompletableFuture}
+ * <p>
+ * 默认在虚拟线程上执行，并用与连接池大小相同的信号量限制同时访问数据库的任务数，
+ * 超出的任务在信号量上排队而不是堆积在获取连接上。
+ * 设置回调执行器后结果会在该执行器上完成，可用于切回主线程处理结果。
+ * <p>
+ * 提交后不要再修改传入的 QueryWrapper 与实体，它们会在执行线程上被读取
+ *
+ * @param <T> 实体类型
+ */
+public class AsyncBaseDao<T> {
+    // 连接池大小无法识别时的默认并发数
+    public static final int DEFAULT_CONCURRENCY = 10;
+
+    // 默认执行器，BaseDao 并发分页时也使用
+    static final ExecutorService VIRTUAL_EXECUTOR = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("easysql-async-", 0).factory());
+
+    // 当前线程是否正持有并发名额执行操作，BaseDao 据此避免在名额之外再占用连接
+    private static final ThreadLocal<Boolean> HOLDING_PERMIT = new ThreadLocal<>();
+
+    private final BaseDao<T> dao;
+    private final Executor executor;
+    private final Executor callbackExecutor; // 为 null 时在执行线程上直接完成
+    private final Semaphore permits;
+    private final int maxConcurrency;
+
+    /**
+     * 使用虚拟线程执行，并发数与连接池大小一致
+     */
+    public AsyncBaseDao(BaseDao<T> dao) {
+        this(dao, VIRTUAL_EXECUTOR, poolSize(dao.sqlManager()), null);
+    }
+
+    /* 共享信号量，回调执行器不同的实例仍受同一个并发限制 */
+    private AsyncBaseDao(BaseDao<T> dao, Executor executor, int maxConcurrency, Semaphore permits,
+                         Executor callbackExecutor) {
+        this.dao = dao;
+        this.executor = executor;
+        this.callbackExecutor = callbackExecutor;
+        this.maxConcurrency = maxConcurrency;
+        this.permits = permits;
+    }
+
+    /**
+     * @param dao              同步 DAO
+     * @param executor         执行数据库操作的执行器
+     * @param maxConcurrency   同时访问数据库的最大任务数
+     * @param callbackExecutor 完成结果所用的执行器，为 null 时在执行线程上完成
+     */
+    public AsyncBaseDao(BaseDao<T> dao, Executor executor, int maxConcurrency, Executor callbackExecutor) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("最大并发数必须大于 0");
+        }
+        this.dao = dao;
+        this.executor = executor;
+        this.callbackExecutor = callbackExecutor;
+        this.maxConcurrency = maxConcurrency;
+        this.permits = new Semaphore(maxConcurrency, true);
+    }
+
+    /**
+     * 使用相同的执行器，在指定的回调执行器上完成结果
+     * 新实例与当前实例共享信号量，两者的任务合计不超过最大并发数
+     */
+    public AsyncBaseDao<T> withCallbackExecutor(Executor callbackExecutor) {
+        return new AsyncBaseDao<>(dao, executor, maxConcurrency, permits, callbackExecutor);
+    }
+
+    /**
+     * 当前线程是否正在 AsyncBaseDao 的并发名额内执行操作
+     * 此时 BaseDao 不再把查询分派到其他线程，一个名额只占用一个连接
+     */
+    static boolean isHoldingPermit() {
+        return HOLDING_PERMIT.get() != null;
+    }
+
+    /**
+     * 获取同步 DAO
+     */
+    public BaseDao<T> getDao() {
+        return dao;
+    }
+
+    /**
+     * 获取最大并发数
+     */
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * 获取当前空闲的并发名额
+     */
+    public int getAvailablePermits() {
+        return permits.availablePermits();
+    }
+
+    /**
+     * 获取正在排队等待执行的任务数（估计值）
+     */
+    public int getQueueLength() {
+        return permits.getQueueLength();
+    }
+
+    /**
+     * 异步执行任意 DAO 操作，受同样的并发限制
+     */
+    public <R> CompletableFuture<R> submit(Function<BaseDao<T>, R> operation) {
+        CompletableFuture<R> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> run(operation, future));
+        } catch (RuntimeException e) {
+            // 执行器已关闭或拒绝任务
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private <R> void run(Function<BaseDao<T>, R> operation, CompletableFuture<R> future) {
+        R result;
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            complete(future, null, e);
+            return;
+        }
+        Boolean outer = HOLDING_PERMIT.get();
+        HOLDING_PERMIT.set(Boolean.TRUE);
+        try {
+            result = operation.apply(dao);
+        } catch (Throwable e) {
+            complete(future, null, e);
+            return;
+        } finally {
+            if (outer == null) {
+                HOLDING_PERMIT.remove();
+            }
+            permits.release();
+        }
+        complete(future, result, null);
+    }
+
+    private <R> void complete(CompletableFuture<R> future, R result, Throwable error) {
+        Runnable completion = error == null
+                ? () -> future.complete(result)
+                : () -> future.completeExceptionally(error);
+        if (callbackExecutor == null) {
+            completion.run();
+            return;
+        }
+        try {
+            callbackExecutor.execute(completion);
+        } catch (RuntimeException e) {
+            // 回调执行器不可用时直接完成，避免调用方永远等待
+            completion.run();
+        }
+    }
+
+    /* 读取 Hikari 连接池的最大连接数 */
+    static int poolSize(SQLManager sm) {
+        if (sm.getDataSource() instanceof HikariDataSource hikari && hikari.getMaximumPoolSize() > 0) {
+            return hikari.getMaximumPoolSize();
+        }
+        return DEFAULT_CONCURRENCY;
+    }
+
+    /* 连接池当前的空闲连接数，无法识别时返回 -1 */
+    static int idleConnections(SQLManager sm) {
+        if (sm.getDataSource() instanceof HikariDataSource hikari && hikari.getHikariPoolMXBean() != null) {
+            return hikari.getHikariPoolMXBean().getIdleConnections();
+        }
+        return -1;
+    }
+
+    // ==================== 查询 ====================
+
+    public CompletableFuture<T> selectOneById(Object id) {
+        return submit(dao -> dao.selectOneById(id));
+    }
+
+    public CompletableFuture<Map<Object, T>> selectByIds(Collection<?> ids) {
+        return submit(dao -> dao.selectByIds(ids));
+    }
+
+    public CompletableFuture<T> selectOneByQuery(QueryWrapper<T> queryWrapper) {
+        return submit(dao -> dao.selectOneByQuery(queryWrapper));
+    }
+
+    public CompletableFuture<List<T>> selectListByQuery(QueryWrapper<T> queryWrapper) {
+        return submit(dao -> dao.selectListByQuery(queryWrapper));
+    }
+
+    public CompletableFuture<List<T>> selectList(CompiledQuery<T> query) {
+        return submit(dao -> dao.selectList(query));
+    }
+
+    public <R> CompletableFuture<List<R>> selectListAs(QueryWrapper<T> queryWrapper, Class<R> type) {
+        return submit(dao -> dao.selectListAs(queryWrapper, type));
+    }
+
+    public CompletableFuture<long[]> selectLongColumn(QueryWrapper<T> queryWrapper, String column) {
+        return submit(dao -> dao.selectLongColumn(queryWrapper, column));
+    }
+
+    public CompletableFuture<int[]> selectIntColumn(QueryWrapper<T> queryWrapper, String column) {
+        return submit(dao -> dao.selectIntColumn(queryWrapper, column));
+    }
+
+    public CompletableFuture<double[]> selectDoubleColumn(QueryWrapper<T> queryWrapper, String column) {
+        return submit(dao -> dao.selectDoubleColumn(queryWrapper, column));
+    }
+
+    /**
+     * 流式处理查询结果，action 在执行线程上逐行调用
+     */
+    public CompletableFuture<Long> selectForEach(QueryWrapper<T> queryWrapper, Consumer<T> action) {
+        return submit(dao -> dao.selectForEach(queryWrapper, action));
+    }
+
+    public CompletableFuture<List<T>> selectAll() {
+        return submit(BaseDao::selectAll);
+    }
+
+    public CompletableFuture<Long> selectCountByQuery(QueryWrapper<T> queryWrapper) {
+        return submit(dao -> dao.selectCountByQuery(queryWrapper));
+    }
+
+    public CompletableFuture<Long> selectCount(CompiledQuery<T> query) {
+        return submit(dao -> dao.selectCount(query));
+    }
+
+    public CompletableFuture<PageResult<T>> paginate(int pageNumber, int pageSize, QueryWrapper<T> queryWrapper) {
+        return submit(dao -> dao.paginate(pageNumber, pageSize, queryWrapper));
+    }
+
+    public CompletableFuture<PageResult<T>> paginate(int pageNumber, int pageSize, long totalRow, QueryWrapper<T> queryWrapper) {
+        return submit(dao -> dao.paginate(pageNumber, pageSize, totalRow, queryWrapper));
+    }
+
+    public CompletableFuture<PageResult<T>> paginate(int pageNumber, int pageSize, Duration totalTtl, QueryWrapper<T> queryWrapper) {
+        return submit(dao -> dao.paginate(pageNumber, pageSize, totalTtl, queryWrapper));
+    }
+
+    public CompletableFuture<PageResult<T>> paginateWithoutCount(int pageNumber, int pageSize, QueryWrapper<T> queryWrapper) {
+        return submit(dao -> dao.paginateWithoutCount(pageNumber, pageSize, queryWrapper));
+    }
+
+    public CompletableFuture<CursorPage<T>> paginateByCursor(String cursor, int pageSize, QueryWrapper<T> queryWrapper) {
+        return submit(dao -> dao.paginateByCursor(cursor, pageSize, queryWrapper));
+    }
+
+    // ==================== 插入 ====================
+
+    public CompletableFuture<Boolean> insert(T entity) {
+        return submit(dao -> dao.insert(entity));
+    }
+
+    public CompletableFuture<Boolean> insert(T entity, boolean ignoreNulls) {
+        return submit(dao -> dao.insert(entity, ignoreNulls));
+    }
+
+    public CompletableFuture<Boolean> insertSelective(T entity) {
+        return submit(dao -> dao.insertSelective(entity));
+    }
+
+    public CompletableFuture<Integer> insertBatch(List<T> entities) {
+        return submit(dao -> dao.insertBatch(entities));
+    }
+
+    public CompletableFuture<Integer> insertBatch(List<T> entities, int size) {
+        return submit(dao -> dao.insertBatch(entities, size));
+    }
+
+    public CompletableFuture<int[]> insertBatchChunks(List<T> entities, int size) {
+        return submit(dao -> dao.insertBatchChunks(entities, size));
+    }
+
+    public CompletableFuture<Integer> insertBatchSelective(List<T> entities) {
+        return submit(dao -> dao.insertBatchSelective(entities));
+    }
+
+    public CompletableFuture<Integer> insertBatchSelective(List<T> entities, boolean preserveOrder) {
+        return submit(dao -> dao.insertBatchSelective(entities, preserveOrder));
+    }
+
+    public CompletableFuture<Boolean> insertOrUpdate(T entity) {
+        return submit(dao -> dao.insertOrUpdate(entity));
+    }
+
+    public CompletableFuture<Boolean> insertOrUpdate(T entity, boolean ignoreNulls) {
+        return submit(dao -> dao.insertOrUpdate(entity, ignoreNulls));
+    }
+
+    public CompletableFuture<Boolean> insertOrUpdateSelective(T entity) {
+        return submit(dao -> dao.insertOrUpdateSelective(entity));
+    }
+
+    public CompletableFuture<Integer> upsertBatch(List<T> entities) {
+        return submit(dao -> dao.upsertBatch(entities));
+    }
+
+    // ==================== 更新 ====================
+
+    public CompletableFuture<Boolean> updateById(T entity) {
+        return submit(dao -> dao.updateById(entity));
+    }
+
+    public CompletableFuture<Boolean> updateById(T entity, boolean ignoreNulls) {
+        return submit(dao -> dao.updateById(entity, ignoreNulls));
+    }
+
+    public CompletableFuture<Integer> updateByQuery(T entity, QueryWrapper<T> queryWrapper) {
+        return submit(dao -> dao.updateByQuery(entity, queryWrapper));
+    }
+
+    public CompletableFuture<Integer> updateByQuery(T entity, boolean ignoreNulls, QueryWrapper<T> queryWrapper) {
+        return submit(dao -> dao.updateByQuery(entity, ignoreNulls, queryWrapper));
+    }
+
+    // ==================== 删除 ====================
+
+    public CompletableFuture<Boolean> deleteById(Object id) {
+        return submit(dao -> dao.deleteById(id));
+    }
+
+    public CompletableFuture<Integer> deleteBatchByIds(List<Object> ids) {
+        return submit(dao -> dao.deleteBatchByIds(ids));
+    }
+
+    public CompletableFuture<Integer> deleteByQuery(QueryWrapper<T> queryWrapper) {
+        return submit(dao -> dao.deleteByQuery(queryWrapper));
+    }
+}
@@ -1,18 +1,35 @@
 package cn.carljoy.easysql;
 
 import cc.carm.lib.easysql.api.SQLManager;
-import cc.carm.lib.easysql.api.SQLQuery;
 import cc.carm.lib.easysql.api.builder.TableCreateBuilder;
-import cc.carm.lib.easysql.api.builder.TableQueryBuilder;
 import cc.carm.lib.easysql.api.enums.IndexType;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import lombok.extern.slf4j.Slf4j;
 
-import java.lang.reflect.Field;
 import java.sql.SQLException;
-import java.sql.Timestamp;
+import java.sql.Statement;
+import java.time.Duration;
 import java.util.ArrayList;
-import java.util.Date;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * 基础 DAO 类，提供通用的 CRUD 操作
@@ -21,18 +38,268 @@ import java.util.List;
  */
 @Slf4j
 public class BaseDao<T> {
+    // 参数数量设置的上限，实际执行时还会按 Dialect#maxParams() 限制
+    public static final int MAX_PARAMS = 65535;
+    // 并行扫描时每个分区报告进度的间隔行数
+    public static final int SCAN_PROGRESS_INTERVAL = 10000;
+    // 按主键批量查询时每条 IN 语句最多包含的主键数量
+    public static final int SELECT_BY_IDS_CHUNK = 512;
+
     private final SQLManager sm;
     private final Class<T> clazz;
     private final TableInfo tableInfo;
+    private final EntityPlan plan;
+    private final SqlExecutor executor;
+
+    // 批量语句的参数数量上限，决定每个分块的行数
+    private int batchParamLimit = 30000;
+    // 批量删除时每条 IN 语句包含的主键数量
+    private int deleteChunkSize = 1000;
+    // 流式查询每次获取的行数，0 表示按数据库自动选择
+    private int fetchSize = 0;
+    // 默认的异步 DAO，首次调用 async() 时创建
+    private volatile AsyncBaseDao<T> async;
+    // 按主键的实体缓存，为 null 时不缓存
+    private volatile EntityCache<T> entityCache;
+    // 查询结果缓存，为 null 时不缓存
+    private volatile QueryCache queryCache;
+    // 脏数据跟踪，为 null 时不跟踪
+    private volatile DirtyTracker dirtyTracker;
+    // 分页时缓存的总记录数，键为数量查询的 SQL 与参数，超出上限时淘汰最久未使用的
+    private static final int MAX_CACHED_TOTALS = 1024;
+    private final Map<List<Object>, CachedTotal> cachedTotals = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<List<Object>, CachedTotal> eldest) {
+                    return size() > MAX_CACHED_TOTALS;
+                }
+            });
+    // 按主键批量查询的 SQL，键为参数个数
+    private final Map<Integer, String> selectByIdsSqls = new ConcurrentHashMap<>();
 
     public BaseDao(Class<T> clazz, SQLManager sm) {
         this.sm = sm;
         this.clazz = clazz;
         this.tableInfo = TableInfo.of(clazz);
+        this.plan = tableInfo.plan;
+        this.executor = new SqlExecutor(sm, tableInfo.name);
 
         createTable();
     }
 
+    /**
+     * 获取批量语句的参数数量上限
+     */
+    public int getBatchParamLimit() {
+        return batchParamLimit;
+    }
+
+    /**
+     * 设置批量语句的参数数量上限，超过 {@link #MAX_PARAMS} 时按其处理，
+     * 执行时还会限制在当前数据库的上限（{@link Dialect#maxParams()}）以内
+     */
+    public void setBatchParamLimit(int batchParamLimit) {
+        this.batchParamLimit = Math.max(1, Math.min(batchParamLimit, MAX_PARAMS));
+    }
+
+    /**
+     * 获取批量删除时每条语句包含的主键数量
+     */
+    public int getDeleteChunkSize() {
+        return deleteChunkSize;
+    }
+
+    /**
+     * 设置批量删除时每条语句包含的主键数量，超过 {@link #MAX_PARAMS} 时按其处理，
+     * 执行时还会限制在当前数据库的上限（{@link Dialect#maxParams()}）以内
+     */
+    public void setDeleteChunkSize(int deleteChunkSize) {
+        this.deleteChunkSize = Math.max(1, Math.min(deleteChunkSize, MAX_PARAMS));
+    }
+
+    /**
+     * 获取流式查询每次获取的行数
+     */
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * 设置流式查询每次获取的行数
+     * 0 表示自动：MySQL 使用 Integer.MIN_VALUE 逐行流式读取，其他数据库每次获取 1000 行
+     */
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * 开启预处理语句复用，同一次借出连接内重复的 SQL 只预处理一次；
+     * 跨借出的复用依赖驱动的语句缓存，见 {@link StatementCache#configureDriverCache}
+     *
+     * @param maxPerConnection 每个物理连接最多缓存的语句数量，超出时淘汰最久未使用的语句
+     * @return 语句缓存，可用于查看命中、淘汰次数
+     */
+    public StatementCache enableStatementCache(int maxPerConnection) {
+        return enableStatementCache(maxPerConnection, maxPerConnection * StatementCache.DEFAULT_MAX_CONNECTIONS);
+    }
+
+    /**
+     * 开启预处理语句复用
+     *
+     * @param maxPerConnection 每个物理连接最多缓存的语句数量，超出时淘汰最久未使用的语句
+     * @param maxTotal 全部物理连接最多缓存的语句数量
+     * @return 语句缓存，可用于查看命中、淘汰次数
+     */
+    public StatementCache enableStatementCache(int maxPerConnection, int maxTotal) {
+        StatementCache cache = new StatementCache(maxPerConnection, maxTotal);
+        executor.setStatementCache(cache);
+        return cache;
+    }
+
+    /**
+     * 关闭预处理语句复用并关闭已缓存的语句
+     */
+    public void disableStatementCache() {
+        executor.setStatementCache(null);
+    }
+
+    /**
+     * 获取语句缓存，未开启时为 null
+     */
+    public StatementCache getStatementCache() {
+        return executor.getStatementCache();
+    }
+
+    /**
+     * 开启按主键的实体缓存，由 selectOneById 填充，按主键的写操作后失效，按条件的写操作后清空
+     * 需要引入 Caffeine 依赖
+     *
+     * @param maximumSize 最多缓存的实体数量
+     * @param ttl         写入后的过期时间，为 null 时不过期
+     * @return 实体缓存，可用于查看命中、淘汰次数
+     */
+    public EntityCache<T> enableEntityCache(long maximumSize, Duration ttl) {
+        return enableEntityCache(EntityCache.builder(maximumSize, ttl));
+    }
+
+    /**
+     * 使用自定义的 Caffeine 构建器开启实体缓存，可按权重限制容量
+     */
+    public EntityCache<T> enableEntityCache(Caffeine<Object, Object> builder) {
+        EntityCache<T> cache = new EntityCache<>(plan, builder);
+        this.entityCache = cache;
+        return cache;
+    }
+
+    /**
+     * 关闭实体缓存
+     */
+    public void disableEntityCache() {
+        this.entityCache = null;
+    }
+
+    /**
+     * 获取实体缓存，未开启时为 null
+     */
+    public EntityCache<T> getEntityCache() {
+        return entityCache;
+    }
+
+    /**
+     * 开启查询结果缓存，缓存 selectListByQuery、selectCountByQuery 及分页查询的结果
+     * 通过 BaseDao 写入该表后旧结果自动失效；需要引入 Caffeine 依赖
+     *
+     * @param maximumBytes 缓存结果的估算内存上限
+     * @param defaultTtl   默认过期时间，为 null 时不过期；可通过 {@link QueryWrapper#cacheTtl(Duration)} 按查询指定
+     * @return 查询缓存，可用于查看命中、淘汰次数
+     */
+    public QueryCache enableQueryCache(long maximumBytes, Duration defaultTtl) {
+        QueryCache cache = new QueryCache(maximumBytes, defaultTtl);
+        this.queryCache = cache;
+        return cache;
+    }
+
+    /**
+     * 关闭查询结果缓存
+     */
+    public void disableQueryCache() {
+        this.queryCache = null;
+    }
+
+    /**
+     * 获取查询结果缓存，未开启时为 null
+     */
+    public QueryCache getQueryCache() {
+        return queryCache;
+    }
+
+    /**
+     * 开启或关闭脏数据跟踪
+     * 开启后通过本 DAO 查询得到的实体会记录原始值，updateById 只更新发生变化的列（及更新时间字段），
+     * 没有变化时不访问数据库；未被跟踪的实体（如手动创建的实体）仍按原方式更新
+     */
+    public void setDirtyTracking(boolean enabled) {
+        this.dirtyTracker = enabled ? new DirtyTracker(plan) : null;
+    }
+
+    /**
+     * 是否开启了脏数据跟踪
+     */
+    public boolean isDirtyTracking() {
+        return dirtyTracker != null;
+    }
+
+    /**
+     * 注册只对本 DAO 生效的 SQL 执行监听器，如 {@link LatencyHistogram}、{@link SlowQueryLog}
+     */
+    public void addListener(QueryListener listener) {
+        executor.addListener(listener);
+    }
+
+    /**
+     * 移除本 DAO 的 SQL 执行监听器
+     */
+    public void removeListener(QueryListener listener) {
+        executor.removeListener(listener);
+    }
+
+    /**
+     * 注册对所有 DAO 生效的 SQL 执行监听器
+     */
+    public static void addGlobalListener(QueryListener listener) {
+        SqlExecutor.addGlobalListener(listener);
+    }
+
+    /**
+     * 移除全局 SQL 执行监听器
+     */
+    public static void removeGlobalListener(QueryListener listener) {
+        SqlExecutor.removeGlobalListener(listener);
+    }
+
+    /**
+     * 获取异步 DAO，在虚拟线程上执行并按连接池大小限制并发
+     * 需要自定义执行器或回调执行器时使用 {@link AsyncBaseDao} 的构造器
+     */
+    public AsyncBaseDao<T> async() {
+        AsyncBaseDao<T> current = async;
+        if (current == null) {
+            synchronized (this) {
+                current = async;
+                if (current == null) {
+                    current = new AsyncBaseDao<>(this);
+                    async = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /* 供异步 DAO 读取连接池配置 */
+    SQLManager sqlManager() {
+        return sm;
+    }
+
     /**
      * 创建查询包装器，无需指定类型
      * @return QueryWrapper实例
@@ -43,7 +310,97 @@ public class BaseDao<T> {
 
     /* 根据主键查询数据 */
     public T selectOneById(Object id) {
-        return selectOneByQuery(createQuery().eq(tableInfo.pk, id));
+        EntityCache<T> cache = entityCache;
+        return track(cache == null || id == null ? loadById(id) : cache.get(id, this::loadById));
+    }
+
+    private T loadById(Object id) {
+        try {
+            return executor.query(plan.selectByIdSql, new Object[]{id}, rs -> {
+                List<T> list = RowMapper.toList(rs, clazz);
+                return list.isEmpty() ? null : list.getFirst();
+            });
+        } catch (SQLException e) {
+            log.error("根据主键查询数据失败: {}", e.getMessage());
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * 根据多个主键查询，一次往返取回多条数据
+     * <p>
+     * 主键去重后按 {@link #SELECT_BY_IDS_CHUNK} 分块执行 WHERE pk IN (...)；每块的参数个数向上取整到 2 的幂，
+     * 不足的位置重复最后一个主键，使同一张表只会产生少数几种 SQL，语句缓存与数据库的执行计划缓存保持命中。
+     * 开启实体缓存时先读取缓存，只查询未命中的主键，查询到的实体同样写入缓存
+     *
+     * @param ids 主键，null 会被忽略
+     * @return 主键（调用方传入的值）到实体的映射，按传入顺序排列，不存在的主键不包含在内；
+     *         任一分块查询失败时返回空映射，不返回部分结果
+     */
+    public Map<Object, T> selectByIds(Collection<?> ids) {
+        if (plan.pk == null) {
+            throw new IllegalStateException("实体没有主键，无法按主键查询");
+        }
+        // 规范化后的主键 -> 调用方传入的主键
+        Map<Object, Object> requested = new LinkedHashMap<>();
+        for (Object id : ids) {
+            if (id != null) {
+                requested.putIfAbsent(EntityPlan.idKey(id), id);
+            }
+        }
+        Map<Object, T> found = new HashMap<>();
+        
+        List<Object> missing = new ArrayList<>(requested.size());
+        EntityCache<T> cache = entityCache;
+        for (Map.Entry<Object, Object> entry : requested.entrySet()) {
+            T cached = cache == null ? null : cache.getIfPresent(entry.getValue());
+            if (cached != null) {
+                found.put(entry.getKey(), cached);
+            } else {
+                missing.add(entry.getValue());
+            }
+        }
+        
+        long version = TableVersions.get(tableInfo.name);
+        List<T> loaded = new ArrayList<>(missing.size());
+        try {
+            for (int from = 0; from < missing.size(); from += SELECT_BY_IDS_CHUNK) {
+                int to = Math.min(from + SELECT_BY_IDS_CHUNK, missing.size());
+                int arity = Math.min(SELECT_BY_IDS_CHUNK, Integer.highestOneBit(to - from - 1) << 1);
+                Object[] params = new Object[Math.max(arity, to - from)];
+                for (int i = 0; i < params.length; i++) {
+                    params[i] = missing.get(Math.min(from + i, to - 1));
+                }
+                loaded.addAll(executor.query(selectByIdsSql(params.length), params, rs -> RowMapper.toList(rs, clazz)));
+            }
+        } catch (SQLException e) {
+            // 无法区分不存在的主键与查询失败的分块，不返回部分结果
+            log.error("根据主键批量查询数据失败: {}", e.getMessage());
+            e.printStackTrace();
+            return new LinkedHashMap<>();
+        }
+        for (T row : loaded) {
+            found.put(EntityPlan.idKey(plan.pk.get(row)), row);
+        }
+        if (cache != null && !loaded.isEmpty()) {
+            cache.putAll(loaded, tableInfo.name, version);
+        }
+        
+        Map<Object, T> result = new LinkedHashMap<>();
+        for (Map.Entry<Object, Object> entry : requested.entrySet()) {
+            T entity = found.get(entry.getKey());
+            if (entity != null) {
+                result.put(entry.getValue(), track(entity));
+            }
+        }
+        return result;
+    }
+
+    /* SELECT * FROM t WHERE pk IN (?, ...)，按参数个数缓存 */
+    private String selectByIdsSql(int size) {
+        return selectByIdsSqls.computeIfAbsent(size, n ->
+                "SELECT * FROM " + tableInfo.name + " WHERE " + tableInfo.pk + " IN (" + SqlExecutor.placeholders(n) + ")");
     }
 
     /* 根据查询条件来查询 1 条数据 */
@@ -56,20 +413,27 @@ public class BaseDao<T> {
 
     /* 根据查询条件查询数据列表 */
     public List<T> selectListByQuery(QueryWrapper<T> queryWrapper) {
-        TableQueryBuilder q = sm.createQuery().inTable(queryWrapper.getTableInfo().name);
-        
-        // 应用条件
-        queryWrapper.applyConditions(q);
-        
-        // 应用排序
-        queryWrapper.applyOrdering(q);
-        
-        // 应用分页
-        queryWrapper.applyPaging(q);
-        
-        // 执行查询
-        try (SQLQuery query = q.build().execute()) {
-            return RowMapper.toList(query.getResultSet(), queryWrapper.getEntityClass());
+        return selectList(queryWrapper.compile());
+    }
+
+    /**
+     * 执行编译后的查询，SQL 文本只在首次遇到该查询结构时生成
+     *
+     * @param query 通过 {@link QueryWrapper#compile()} 得到的查询
+     * @return 数据列表
+     */
+    public List<T> selectList(CompiledQuery<T> query) {
+        try {
+            QueryCache cache = queryCache;
+            if (cache == null) {
+                return trackAll(executor.query(query.getSql(), query.params(),
+                        rs -> RowMapper.toList(rs, query.getEntityClass())));
+            }
+            List<T> cached = cache.get(tableInfo.name, query.getSql(), query.params(), query.getCacheTtl(),
+                    () -> Collections.unmodifiableList(executor.query(query.getSql(), query.params(),
+                            rs -> RowMapper.toList(rs, query.getEntityClass()))),
+                    this::estimateSize);
+            return trackAll(copyOf(cached));
         } catch (SQLException e) {
             log.error("查询数据列表失败: {}", e.getMessage());
             
@@ -78,6 +442,294 @@ public class BaseDao<T> {
         }
     }
 
+    /**
+     * 查询并映射为 record 或 DTO，通常配合 {@link QueryWrapper#select(String...)} 只查询需要的列
+     * <p>
+     * 列按名称匹配目标的字段或 record 组件（忽略大小写，支持下划线与驼峰），没有对应列的保持默认值。
+     * 结果不经过查询缓存与脏数据跟踪
+     *
+     * @param queryWrapper 查询条件
+     * @param type 目标类型，record 之外的类需要无参构造器
+     * @return 数据列表
+     */
+    public <R> List<R> selectListAs(QueryWrapper<T> queryWrapper, Class<R> type) {
+        return selectListAs(queryWrapper.compile(), type);
+    }
+
+    /**
+     * 执行编译后的查询并映射为 record 或 DTO
+     *
+     * @see #selectListAs(QueryWrapper, Class)
+     */
+    public <R> List<R> selectListAs(CompiledQuery<T> query, Class<R> type) {
+        try {
+            return executor.query(query.getSql(), query.params(), rs -> RowMapper.toListAs(rs, type));
+        } catch (SQLException e) {
+            log.error("查询数据列表失败: {}", e.getMessage());
+            e.printStackTrace();
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * 查询单个整数列，如满足条件的全部主键
+     * <p>
+     * 直接以 getLong 读取，不创建实体，也不为每行创建包装对象；值为 NULL 的行会被跳过。
+     * 只查询该列，不修改 queryWrapper 的查询列，结果不经过查询缓存
+     *
+     * @param queryWrapper 查询条件
+     * @param column 列名
+     * @return 按查询顺序排列的值
+     */
+    public long[] selectLongColumn(QueryWrapper<T> queryWrapper, String column) {
+        CompiledQuery<T> query = queryWrapper.compile(column);
+        try {
+            return executor.query(query.getSql(), query.params(), RowMapper::toLongArray);
+        } catch (SQLException e) {
+            log.error("查询数据列失败: {}", e.getMessage());
+            e.printStackTrace();
+            return new long[0];
+        }
+    }
+
+    public long[] selectLongColumn(QueryWrapper<T> queryWrapper, LambdaUtils.SFunction<T, ?> column) {
+        return selectLongColumn(queryWrapper, LambdaUtils.getColumnName(column));
+    }
+
+    /**
+     * 查询单个 int 列，值为 NULL 的行会被跳过
+     *
+     * @see #selectLongColumn(QueryWrapper, String)
+     */
+    public int[] selectIntColumn(QueryWrapper<T> queryWrapper, String column) {
+        CompiledQuery<T> query = queryWrapper.compile(column);
+        try {
+            return executor.query(query.getSql(), query.params(), RowMapper::toIntArray);
+        } catch (SQLException e) {
+            log.error("查询数据列失败: {}", e.getMessage());
+            e.printStackTrace();
+            return new int[0];
+        }
+    }
+
+    public int[] selectIntColumn(QueryWrapper<T> queryWrapper, LambdaUtils.SFunction<T, ?> column) {
+        return selectIntColumn(queryWrapper, LambdaUtils.getColumnName(column));
+    }
+
+    /**
+     * 查询单个浮点数列，值为 NULL 的行会被跳过
+     *
+     * @see #selectLongColumn(QueryWrapper, String)
+     */
+    public double[] selectDoubleColumn(QueryWrapper<T> queryWrapper, String column) {
+        CompiledQuery<T> query = queryWrapper.compile(column);
+        try {
+            return executor.query(query.getSql(), query.params(), RowMapper::toDoubleArray);
+        } catch (SQLException e) {
+            log.error("查询数据列失败: {}", e.getMessage());
+            e.printStackTrace();
+            return new double[0];
+        }
+    }
+
+    public double[] selectDoubleColumn(QueryWrapper<T> queryWrapper, LambdaUtils.SFunction<T, ?> column) {
+        return selectDoubleColumn(queryWrapper, LambdaUtils.getColumnName(column));
+    }
+
+    /**
+     * 流式查询，逐行映射而不会一次性加载全部结果
+     * <p>
+     * 使用只读、仅向前的游标并按 {@link #getFetchSize()} 分批读取；
+     * 返回的流持有数据库连接，必须关闭（推荐 try-with-resources）
+     *
+     * @param queryWrapper 查询条件
+     * @return 实体流，查询失败时返回空流
+     */
+    public Stream<T> selectStream(QueryWrapper<T> queryWrapper) {
+        CompiledQuery<T> query = queryWrapper.compile();
+        try {
+            Stream<T> stream = executor.stream(query.getSql(), query.params(), resolveFetchSize(), query.getEntityClass());
+            return dirtyTracker == null ? stream : stream.map(this::track);
+        } catch (SQLException e) {
+            log.error("流式查询失败: {}", e.getMessage());
+            e.printStackTrace();
+            return Stream.empty();
+        }
+    }
+
+    /**
+     * 流式遍历查询结果，遍历结束后自动释放连接
+     *
+     * @param queryWrapper 查询条件
+     * @param action 对每条数据执行的操作
+     * @return 处理的数据条数
+     */
+    public long selectForEach(QueryWrapper<T> queryWrapper, Consumer<T> action) {
+        long count = 0;
+        try (Stream<T> stream = selectStream(queryWrapper)) {
+            Iterator<T> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                action.accept(iterator.next());
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 按主键范围分区并行扫描
+     *
+     * @see #parallelScan(QueryWrapper, int, Consumer, ScanProgress)
+     */
+    public long parallelScan(QueryWrapper<T> queryWrapper, int partitions, Consumer<T> action) {
+        return parallelScan(queryWrapper, partitions, action, null);
+    }
+
+    /**
+     * 按主键范围分区并行扫描，适合重算排行、数据迁移等全表任务
+     * <p>
+     * 先查询满足条件的主键 MIN / MAX，将其等宽切分为 partitions 个范围，
+     * 每个范围在独立的连接上以流式查询读取，同时运行的分区数为连接池大小减一，至少给其他操作留出一个连接。
+     * 主键不是整数类型时退化为单个分区。queryWrapper 的查询列与条件生效，排序与分页被忽略；
+     * 结果不经过脏数据跟踪。
+     *
+     * @see #parallelScan(QueryWrapper, int, int, Consumer, ScanProgress)
+     */
+    public long parallelScan(QueryWrapper<T> queryWrapper, int partitions, Consumer<T> action, ScanProgress progress) {
+        return parallelScan(queryWrapper, partitions, AsyncBaseDao.poolSize(sm) - 1, action, progress);
+    }
+
+    /**
+     * 按主键范围分区并行扫描，指定同时运行的分区数
+     * <p>
+     * 每个运行中的分区占用一个连接直到读取结束，parallelism 会被限制在连接池大小减一以内；
+     * 在 AsyncBaseDao 中执行时各分区在当前线程上依次读取。
+     * <p>
+     * action 会在多个线程上并发调用，必须是线程安全的。action 在读取期间执行，
+     * 通过 DAO 写回等需要连接的操作会与扫描争用连接池，应先收集结果，扫描结束后再批量写入。
+     * 任一分区失败时其余分区尽快停止，并抛出第一个异常
+     *
+     * @param queryWrapper 查询条件
+     * @param partitions 分区数量
+     * @param parallelism 同时运行的分区数
+     * @param action 对每条数据执行的操作
+     * @param progress 分区进度回调，可为 null
+     * @return 处理的数据条数
+     */
+    public long parallelScan(QueryWrapper<T> queryWrapper, int partitions, int parallelism, Consumer<T> action,
+                             ScanProgress progress) {
+        if (partitions <= 0) {
+            throw new IllegalArgumentException("分区数量必须大于 0");
+        }
+        List<Object> whereParams = new ArrayList<>();
+        String where = queryWrapper.hasConditions() ? "(" + queryWrapper.buildWhereClause(whereParams) + ")" : null;
+        String[] columns = queryWrapper.getSelectColumns();
+        String select = "SELECT " + (columns == null ? "*" : String.join(", ", columns)) + " FROM " + tableInfo.name;
+        
+        // 按主键 MIN / MAX 等宽切分，[lower, upper) 最后一个分区包含 MAX
+        List<long[]> ranges = new ArrayList<>();
+        boolean integral = plan.pk != null && isIntegral(plan.pk.type);
+        if (integral) {
+            long[] bounds;
+            try {
+                bounds = executor.query("SELECT MIN(" + tableInfo.pk + "), MAX(" + tableInfo.pk + ") FROM " + tableInfo.name
+                                + (where == null ? "" : " WHERE " + where), whereParams.toArray(),
+                        rs -> {
+                            if (!rs.next()) {
+                                return null;
+                            }
+                            long min = rs.getLong(1);
+                            return rs.wasNull() ? null : new long[]{min, rs.getLong(2)};
+                        });
+            } catch (SQLException e) {
+                throw new IllegalStateException("查询主键范围失败: " + e.getMessage(), e);
+            }
+            if (bounds == null) {
+                return 0;
+            }
+            // 按无符号数计算跨度，避免 MAX - MIN 溢出
+            long step = Long.divideUnsigned(bounds[1] - bounds[0], partitions) + 1;
+            for (long lower = bounds[0]; ; lower += step) {
+                long upper = lower + step;
+                boolean last = upper - 1 >= bounds[1] || upper < lower;
+                ranges.add(new long[]{lower, last ? bounds[1] : upper, last ? 1 : 0});
+                if (last) {
+                    break;
+                }
+            }
+        }
+        int count = integral ? ranges.size() : 1;
+        
+        AtomicInteger next = new AtomicInteger();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        LongAdder total = new LongAdder();
+        Runnable worker = () -> {
+            for (int partition; failure.get() == null && (partition = next.getAndIncrement()) < count; ) {
+                List<Object> params = new ArrayList<>(whereParams);
+                StringBuilder sql = new StringBuilder(select);
+                if (integral) {
+                    long[] range = ranges.get(partition);
+                    sql.append(" WHERE ");
+                    if (where != null) {
+                        sql.append(where).append(" AND ");
+                    }
+                    sql.append(tableInfo.pk).append(" >= ? AND ").append(tableInfo.pk).append(range[2] == 1 ? " <= ?" : " < ?");
+                    params.add(range[0]);
+                    params.add(range[1]);
+                } else if (where != null) {
+                    sql.append(" WHERE ").append(where);
+                }
+                
+                long rows = 0;
+                try (Stream<T> stream = executor.stream(sql.toString(), params.toArray(), resolveFetchSize(), clazz)) {
+                    Iterator<T> iterator = stream.iterator();
+                    while (iterator.hasNext() && failure.get() == null) {
+                        action.accept(iterator.next());
+                        if (++rows % SCAN_PROGRESS_INTERVAL == 0 && progress != null) {
+                            progress.onProgress(partition, count, rows, false);
+                        }
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                    return;
+                } finally {
+                    total.add(rows);
+                }
+                if (progress != null) {
+                    progress.onProgress(partition, count, rows, true);
+                }
+            }
+        };
+        
+        // 至少给其他操作留出一个连接，在 AsyncBaseDao 中执行时只用当前线程依次扫描各分区
+        int workerCount = AsyncBaseDao.isHoldingPermit() ? 1
+                : Math.max(1, Math.min(count, Math.min(parallelism, AsyncBaseDao.poolSize(sm) - 1)));
+        CompletableFuture<?>[] workers = new CompletableFuture<?>[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            workers[i] = CompletableFuture.runAsync(worker, AsyncBaseDao.isHoldingPermit()
+                    ? Runnable::run : AsyncBaseDao.VIRTUAL_EXECUTOR);
+        }
+        CompletableFuture.allOf(workers).join();
+        
+        Throwable error = failure.get();
+        if (error != null) {
+            log.error("并行扫描失败: {}", error.getMessage());
+            if (error instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (error instanceof Error fatal) {
+                throw fatal;
+            }
+            throw new IllegalStateException("并行扫描失败: " + error.getMessage(), error);
+        }
+        return total.sum();
+    }
+
+    private static boolean isIntegral(Class<?> type) {
+        return type == long.class || type == Long.class || type == int.class || type == Integer.class
+                || type == short.class || type == Short.class || type == byte.class || type == Byte.class;
+    }
+
     /* 查询全部数据 */
     public List<T> selectAll() {
         return selectListByQuery(createQuery());
@@ -85,18 +737,26 @@ public class BaseDao<T> {
 
     /* 查询数据量 */
     public long selectCountByQuery(QueryWrapper<T> queryWrapper) {
+        return selectCount(queryWrapper.compileCount());
+    }
+
+    /**
+     * 执行编译后的数量查询
+     *
+     * @param query 通过 {@link QueryWrapper#compileCount()} 得到的查询
+     * @return 数据量
+     */
+    public long selectCount(CompiledQuery<T> query) {
         try {
-            TableQueryBuilder q = sm.createQuery()
-                    .inTable(queryWrapper.getTableInfo().name)
-                    .selectColumns("COUNT(1)");
-            
-            queryWrapper.applyConditions(q);
-            
-            try (SQLQuery query = q.build().execute()) {
-                return query.getResultSet().next()
-                        ? query.getResultSet().getLong(1)
-                        : 0L;
+            QueryCache cache = queryCache;
+            if (cache == null) {
+                return executor.query(query.getSql(), query.params(),
+                        rs -> rs.next() ? rs.getLong(1) : 0L);
             }
+            return cache.get(tableInfo.name, query.getSql(), query.params(), query.getCacheTtl(),
+                    () -> executor.query(query.getSql(), query.params(),
+                            rs -> rs.next() ? rs.getLong(1) : 0L),
+                    count -> 32L);
         } catch (SQLException e) {
             log.error("查询数据量失败: {}", e.getMessage());
             e.printStackTrace();
@@ -106,6 +766,8 @@ public class BaseDao<T> {
 
     /**
      * 分页查询，自动计算总记录数
+     * 连接池有两个以上空闲连接时，总数与当前页在不同的连接上并发查询，耗时取两者中较长的一个；
+     * 空闲连接不足或在 AsyncBaseDao 中执行时两者在同一线程上依次查询，不额外占用连接
      * 
      * @param pageNumber 页码（从1开始）
      * @param pageSize 每页大小
@@ -114,8 +776,10 @@ public class BaseDao<T> {
      */
     public PageResult<T> paginate(int pageNumber, int pageSize, QueryWrapper<T> queryWrapper) {
         try {
-            // 先查询总记录数
-            long total = selectCountByQuery(queryWrapper);
+            // 先编译数量查询，page() 会修改 queryWrapper
+            CompiledQuery<T> countQuery = queryWrapper.compileCount();
+            CompletableFuture<Long> total = CompletableFuture.supplyAsync(
+                    () -> selectCount(countQuery), queryExecutor());
             
             // 设置分页参数
             queryWrapper.page(pageNumber, pageSize);
@@ -123,13 +787,131 @@ public class BaseDao<T> {
             // 查询当前页数据
             List<T> records = selectListByQuery(queryWrapper);
             
-            return new PageResult<>(records, total, pageNumber, pageSize);
+            return new PageResult<>(records, total.join(), pageNumber, pageSize);
         } catch (Exception e) {
             log.error("分页查询失败: {}", e.getMessage());
             e.printStackTrace();
             return new PageResult<>(new ArrayList<>(), 0L, pageNumber, pageSize);
         }
     }
+
+    /**
+     * 分页查询，总记录数按查询条件缓存，适合总数很大、COUNT 代价高的表
+     * <p>
+     * 首次查询时与当前页并发统计总数；之后直接使用缓存的总数，超过 totalTtl 或表被修改后在后台重新统计，
+     * 本次仍返回旧值。使用缓存的总数时 {@link PageResult#isTotalExact()} 为 false。
+     * 空闲连接不足或在 AsyncBaseDao 中执行时统计在当前线程上完成
+     *
+     * @param pageNumber 页码（从1开始）
+     * @param pageSize 每页大小
+     * @param totalTtl 总记录数的有效期
+     * @param queryWrapper 查询条件
+     * @return 分页结果
+     */
+    public PageResult<T> paginate(int pageNumber, int pageSize, Duration totalTtl, QueryWrapper<T> queryWrapper) {
+        try {
+            CompiledQuery<T> countQuery = queryWrapper.compileCount();
+            List<Object> key = new ArrayList<>(countQuery.params().length + 1);
+            key.add(countQuery.getSql());
+            key.addAll(Arrays.asList(countQuery.params()));
+            
+            CachedTotal cached = cachedTotals.get(key);
+            CompletableFuture<Long> total = null;
+            if (cached == null) {
+                total = countTotal(key, countQuery);
+            } else if (cached.isStale(totalTtl, TableVersions.get(tableInfo.name))
+                    && cached.refreshing.compareAndSet(false, true)) {
+                countTotal(key, countQuery).whenComplete((count, error) -> {
+                    if (error != null) {
+                        // 保留旧值，下次查询时再次尝试
+                        cached.refreshing.set(false);
+                        log.error("刷新分页总数失败: {}", error.getMessage());
+                    }
+                });
+            }
+            
+            queryWrapper.page(pageNumber, pageSize);
+            List<T> records = selectListByQuery(queryWrapper);
+            
+            return total != null
+                    ? new PageResult<>(records, total.join(), pageNumber, pageSize)
+                    : new PageResult<>(records, cached.total, pageNumber, pageSize, false);
+        } catch (Exception e) {
+            log.error("分页查询失败: {}", e.getMessage());
+            e.printStackTrace();
+            return new PageResult<>(new ArrayList<>(), 0L, pageNumber, pageSize);
+        }
+    }
+
+    /**
+     * 分页查询，不统计总记录数
+     * <p>
+     * 多查询一条数据来判断是否有下一页，省去 COUNT 查询。
+     * 返回的总记录数为已知的下限（之前各页加当前页），只有确定已到最后一页时 {@link PageResult#isTotalExact()} 为 true，
+     * 是否有下一页应使用 {@link PageResult#hasMore()} 判断
+     *
+     * @param pageNumber 页码（从1开始）
+     * @param pageSize 每页大小
+     * @param queryWrapper 查询条件
+     * @return 分页结果
+     * @throws IllegalArgumentException 页码或每页大小小于 1，或偏移量超出 int 范围
+     */
+    public PageResult<T> paginateWithoutCount(int pageNumber, int pageSize, QueryWrapper<T> queryWrapper) {
+        long offset = (long) (pageNumber - 1) * pageSize;
+        // 多取的一条同样需要落在 int 范围内
+        if (pageNumber < 1 || pageSize < 1 || offset + pageSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("分页参数超出范围: pageNumber=" + pageNumber + ", pageSize=" + pageSize);
+        }
+        try {
+            queryWrapper.range((int) offset, pageSize + 1);
+            List<T> records = selectListByQuery(queryWrapper);
+            
+            boolean hasNext = records.size() > pageSize;
+            if (hasNext) {
+                records = new ArrayList<>(records.subList(0, pageSize));
+            }
+            // 当前页为空且不是第一页时，无法知道总数
+            boolean exact = !hasNext && (!records.isEmpty() || pageNumber == 1);
+            return new PageResult<>(records, offset + records.size(), pageNumber, pageSize, exact, hasNext);
+        } catch (Exception e) {
+            log.error("分页查询失败: {}", e.getMessage());
+            e.printStackTrace();
+            return new PageResult<>(new ArrayList<>(), offset, pageNumber, pageSize, false, false);
+        }
+    }
+
+    /* 在后台统计总数并写入缓存，失败时不缓存 */
+    private CompletableFuture<Long> countTotal(List<Object> key, CompiledQuery<T> countQuery) {
+        return CompletableFuture.supplyAsync(() -> {
+            // 版本号在统计之前读取，统计期间的修改会让下次查询再次刷新
+            long version = TableVersions.get(tableInfo.name);
+            long total;
+            try {
+                total = executor.query(countQuery.getSql(), countQuery.params(),
+                        rs -> rs.next() ? rs.getLong(1) : 0L);
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+            cachedTotals.put(key, new CachedTotal(total, System.nanoTime(), version, new AtomicBoolean()));
+            return total;
+        }, queryExecutor());
+    }
+
+    /*
+     * 额外查询使用的执行器：已持有 AsyncBaseDao 名额，或连接池空闲连接不足两个（含无法识别）时在当前线程执行，
+     * 避免并发统计让每次分页占用两个连接而耗尽连接池
+     */
+    private Executor queryExecutor() {
+        return AsyncBaseDao.isHoldingPermit() || AsyncBaseDao.idleConnections(sm) < 2
+                ? Runnable::run : AsyncBaseDao.VIRTUAL_EXECUTOR;
+    }
+
+    /* 缓存的总记录数 */
+    private record CachedTotal(long total, long countedAt, long version, AtomicBoolean refreshing) {
+        boolean isStale(Duration ttl, long currentVersion) {
+            return version != currentVersion || System.nanoTime() - countedAt > ttl.toNanos();
+        }
+    }
     
     /**
      * 分页查询，使用指定的总记录数（避免重复查询总数）
@@ -152,109 +934,127 @@ public class BaseDao<T> {
         } catch (Exception e) {
             log.error("分页查询失败: {}", e.getMessage());
             e.printStackTrace();
-            return new PageResult<>(new ArrayList<>(), totalRow, pageNumber, pageSize);
+            return new PageResult<>(new ArrayList<>(), totalRow, pageNumber, pageSize);
+        }
+    }
+
+    /**
+     * 游标分页（keyset），适合深分页
+     * <p>
+     * 按 queryWrapper 的排序字段加主键排序（未指定排序时只按主键），生成
+     * WHERE (sort, pk) > (?, ?) ORDER BY sort, pk LIMIT n 查询，不会扫描并丢弃前面的行。
+     * 排序字段应为非空列；queryWrapper 中的分页设置会被忽略
+     *
+     * @param cursor 上一页返回的 {@link CursorPage#getNextCursor()}，查询第一页时传 null
+     * @param pageSize 每页大小
+     * @param queryWrapper 查询条件
+     * @return 游标分页结果
+     */
+    public CursorPage<T> paginateByCursor(String cursor, int pageSize, QueryWrapper<T> queryWrapper) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("每页大小必须大于 0");
+        }
+        
+        // 排序键：排序字段 + 主键
+        String orderColumn = queryWrapper.getOrderColumn();
+        String[] keys = orderColumn == null || orderColumn.equalsIgnoreCase(tableInfo.pk)
+                ? new String[]{tableInfo.pk}
+                : new String[]{orderColumn, tableInfo.pk};
+        EntityPlan.Property[] keyProperties = new EntityPlan.Property[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            keyProperties[i] = plan.property(keys[i]);
+            if (keyProperties[i] == null) {
+                throw new IllegalArgumentException("排序字段未映射到实体: " + keys[i]);
+            }
+            if (!CursorPage.supports(keyProperties[i].type)) {
+                throw new IllegalArgumentException("不支持作为游标分页排序键的类型: " + keys[i] + " " + keyProperties[i].type.getName());
+            }
+        }
+        String direction = queryWrapper.isOrderAsc() ? "ASC" : "DESC";
+        
+        List<Object> params = new ArrayList<>();
+        List<String> whereParts = new ArrayList<>();
+        if (queryWrapper.hasConditions()) {
+            whereParts.add(queryWrapper.buildWhereClause(params));
+        }
+        if (cursor != null) {
+            Object[] lastKeys = CursorPage.decode(cursor, keys.length);
+            String columns = String.join(", ", keys);
+            String placeholders = SqlExecutor.placeholders(keys.length);
+            whereParts.add(keys.length == 1
+                    ? columns + (queryWrapper.isOrderAsc() ? " > " : " < ") + placeholders
+                    : "(" + columns + ")" + (queryWrapper.isOrderAsc() ? " > " : " < ") + "(" + placeholders + ")");
+            params.addAll(Arrays.asList(lastKeys));
+        }
+        
+        // 指定了查询列时补上排序键，用于生成下一页的游标
+        String select = "*";
+        if (queryWrapper.getSelectColumns() != null) {
+            List<String> columns = new ArrayList<>(Arrays.asList(queryWrapper.getSelectColumns()));
+            for (String key : keys) {
+                if (columns.stream().noneMatch(key::equalsIgnoreCase)) {
+                    columns.add(key);
+                }
+            }
+            select = String.join(", ", columns);
+        }
+        
+        StringBuilder sql = new StringBuilder("SELECT ").append(select).append(" FROM ").append(tableInfo.name);
+        if (!whereParts.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", whereParts));
+        }
+        sql.append(" ORDER BY ");
+        for (int i = 0; i < keys.length; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(keys[i]).append(' ').append(direction);
+        }
+        // 多取一条用于判断是否有下一页
+        sql.append(" LIMIT ").append(pageSize + 1);
+        
+        try {
+            List<T> records = trackAll(executor.query(sql.toString(), params.toArray(),
+                    rs -> RowMapper.toList(rs, clazz)));
+            String nextCursor = null;
+            if (records.size() > pageSize) {
+                records = new ArrayList<>(records.subList(0, pageSize));
+                T last = records.get(pageSize - 1);
+                Object[] lastKeys = new Object[keyProperties.length];
+                for (int i = 0; i < keyProperties.length; i++) {
+                    lastKeys[i] = keyProperties[i].get(last);
+                }
+                nextCursor = CursorPage.encode(lastKeys);
+            }
+            return new CursorPage<>(records, pageSize, nextCursor);
+        } catch (SQLException e) {
+            log.error("游标分页查询失败: {}", e.getMessage());
+            e.printStackTrace();
+            return new CursorPage<>(new ArrayList<>(), pageSize, null);
         }
     }
 
     /* 根据主键删除 */
     public boolean deleteById(Object id) {
         try {
-            Integer result = sm.createDelete(tableInfo.name)
-                    .addCondition(tableInfo.pk, id)
-                    .build()
-                    .execute();
-            return result > 0;
+            return executor.update(plan.deleteByIdSql, new Object[]{id}) > 0;
         } catch (SQLException e) {
             log.error("删除数据失败: {}", e.getMessage());
             e.printStackTrace();
             return false;
+        } finally {
+            evict(id);
         }
     }
 
     /* 插入实体（简单实现，可根据需要扩展） */
     public boolean insert(T entity) {
-        try {
-            // 自动设置时间戳
-            setTimestamps(entity, true);
-            
-            List<String> columns = new ArrayList<>();
-            List<Object> values = new ArrayList<>();
-            
-            for (Field field : clazz.getFields()) {
-                String columnName = camelToUnder(field.getName());
-                Object value = field.get(entity);
-                if (value != null) {
-                    columns.add(columnName);
-                    values.add(value);
-                }
-            }
-            
-            if (columns.isEmpty()) {
-                return false;
-            }
-            
-            Integer result = sm.createInsert(tableInfo.name)
-                    .setColumnNames(columns.toArray(new String[0]))
-                    .setParams(values.toArray())
-                    .execute();
-            
-            return result != null && result > 0;
-        } catch (Exception e) {
-            log.error("插入数据失败: {}", e.getMessage());
-            e.printStackTrace();
-            return false;
-        }
+        return insert(entity, true);
     }
 
     /* 根据主键更新实体 */
     public boolean updateById(T entity) {
-        try {
-            // 自动设置更新时间戳
-            setTimestamps(entity, false);
-            
-            List<String> setParts = new ArrayList<>();
-            List<Object> values = new ArrayList<>();
-            Object pkValue = null;
-            
-            for (Field field : clazz.getFields()) {
-                String columnName = camelToUnder(field.getName());
-                Object value = field.get(entity);
-                
-                // 检查是否为主键字段
-                boolean isPrimaryKey = false;
-                for (TableInfo.ColumnInfo column : tableInfo.columns) {
-                    if (column.field.equals(field) && column.primaryKey) {
-                        isPrimaryKey = true;
-                        pkValue = value;
-                        break;
-                    }
-                }
-                
-                // 非主键字段且有值的才加入更新列表
-                if (!isPrimaryKey && value != null) {
-                    setParts.add(columnName + " = ?");
-                    values.add(value);
-                }
-            }
-            
-            if (setParts.isEmpty() || pkValue == null) {
-                return false;
-            }
-            
-            // 添加主键值到参数列表末尾
-            values.add(pkValue);
-            
-            String sql = "UPDATE " + tableInfo.name + " SET " + 
-                        String.join(", ", setParts) + " WHERE " + tableInfo.pk + " = ?";
-            
-            Integer result = sm.executeSQL(sql, values.toArray());
-            
-            return result != null && result > 0;
-        } catch (Exception e) {
-            log.error("更新数据失败: {}", e.getMessage());
-            e.printStackTrace();
-            return false;
-        }
+        return updateById(entity, true);
     }
 
     // ==================== 新增的插入操作方法 ====================
@@ -272,30 +1072,36 @@ public class BaseDao<T> {
     public boolean insert(T entity, boolean ignoreNulls) {
         try {
             // 自动设置时间戳
-            setTimestamps(entity, true);
-            
-            List<String> columns = new ArrayList<>();
-            List<Object> values = new ArrayList<>();
+            plan.setTimestamps(entity, true);
             
-            for (Field field : clazz.getFields()) {
-                String columnName = camelToUnder(field.getName());
-                Object value = field.get(entity);
-                if (!ignoreNulls || value != null) {
-                    columns.add(columnName);
-                    values.add(value);
+            Object[] values = plan.values(entity);
+            int count = values.length;
+            if (ignoreNulls) {
+                for (Object value : values) {
+                    if (value == null) {
+                        count--;
+                    }
                 }
             }
             
-            if (columns.isEmpty()) {
+            if (count == 0) {
                 return false;
             }
             
-            Integer result = sm.createInsert(tableInfo.name)
-                    .setColumnNames(columns.toArray(new String[0]))
-                    .setParams(values.toArray())
-                    .execute();
+            EntityPlan.Property[] columns = count == values.length ? plan.properties : new EntityPlan.Property[count];
+            Object[] params = count == values.length ? values : new Object[count];
+            if (count != values.length) {
+                int i = 0;
+                for (EntityPlan.Property property : plan.properties) {
+                    Object value = values[property.index];
+                    if (value != null) {
+                        columns[i] = property;
+                        params[i++] = value;
+                    }
+                }
+            }
             
-            return result != null && result > 0;
+            return executor.update(buildInsertSql(columns, 1), params) > 0;
         } catch (Exception e) {
             log.error("插入数据失败: {}", e.getMessage());
             e.printStackTrace();
@@ -307,86 +1113,116 @@ public class BaseDao<T> {
      * 批量插入实体类数据，只会根据第一条数据来构建插入的字段内容
      */
     public int insertBatch(List<T> entities) {
-        if (entities == null || entities.isEmpty()) {
-            return 0;
-        }
-        
-        try {
-            // 根据第一条数据构建字段列表
-            T firstEntity = entities.get(0);
-            setTimestamps(firstEntity, true);
-            
-            List<String> columns = new ArrayList<>();
-            for (Field field : clazz.getFields()) {
-                String columnName = camelToUnder(field.getName());
-                Object value = field.get(firstEntity);
-                if (value != null) {
-                    columns.add(columnName);
-                }
-            }
-            
-            if (columns.isEmpty()) {
-                return 0;
-            }
-            
-            // 构建所有实体的值
-            List<Object[]> allValues = new ArrayList<>();
-            for (T entity : entities) {
-                setTimestamps(entity, true);
-                List<Object> values = new ArrayList<>();
-                for (Field field : clazz.getFields()) {
-                    String columnName = camelToUnder(field.getName());
-                    if (columns.contains(columnName)) {
-                        values.add(field.get(entity));
-                    }
-                }
-                allValues.add(values.toArray());
-            }
-            
-            Integer result = sm.createInsert(tableInfo.name)
-                    .setColumnNames(columns.toArray(new String[0]))
-                    .setParams(allValues.toArray(new Object[0][]))
-                    .execute();
-            
-            return result != null ? result : 0;
-        } catch (Exception e) {
-            log.error("批量插入数据失败: {}", e.getMessage());
-            e.printStackTrace();
-            return 0;
-        }
+        return insertBatch(entities, Integer.MAX_VALUE);
     }
     
     /**
      * 批量插入实体类数据，按 size 切分
      */
     public int insertBatch(List<T> entities, int size) {
+        int totalInserted = 0;
+        for (int count : insertBatchChunks(entities, size)) {
+            totalInserted += count;
+        }
+        return totalInserted;
+    }
+    
+    /**
+     * 批量插入实体类数据，按 size 切分，返回每个分块实际插入的行数
+     * <p>
+     * 只会根据第一条数据来构建插入的字段内容；每个分块生成一条多行 INSERT ... VALUES (...), (...) 语句
+     * 并作为单独的事务提交，分块行数同时受 {@link #getBatchParamLimit()} 限制。
+     * 某个分块失败时回滚该分块并停止，已提交的分块保留
+     */
+    public int[] insertBatchChunks(List<T> entities, int size) {
         if (entities == null || entities.isEmpty()) {
-            return 0;
+            return new int[0];
         }
         
-        int totalInserted = 0;
-        for (int i = 0; i < entities.size(); i += size) {
-            int end = Math.min(i + size, entities.size());
-            List<T> batch = entities.subList(i, end);
-            totalInserted += insertBatch(batch);
+        // 根据第一条数据构建字段列表
+        T firstEntity = entities.get(0);
+        plan.setTimestamps(firstEntity, true);
+        
+        List<EntityPlan.Property> selected = new ArrayList<>();
+        for (EntityPlan.Property property : plan.properties) {
+            if (property.get(firstEntity) != null) {
+                selected.add(property);
+            }
         }
         
-        return totalInserted;
+        if (selected.isEmpty()) {
+            return new int[0];
+        }
+        
+        for (int i = 1; i < entities.size(); i++) {
+            plan.setTimestamps(entities.get(i), true);
+        }
+        
+        EntityPlan.Property[] columns = selected.toArray(new EntityPlan.Property[0]);
+        return executeInsertGroups(List.of(new InsertGroup<>(null, columns, entities)), size, this::buildInsertSql);
     }
     
     /**
      * 批量插入实体类数据，忽略 null 值
      */
     public int insertBatchSelective(List<T> entities) {
+        return insertBatchSelective(entities, false);
+    }
+    
+    /**
+     * 批量插入实体类数据，忽略 null 值
+     * <p>
+     * 按每行非 null 字段的组合分组，每种组合的字段列表只计算一次，每组按分块生成多行 INSERT 语句。
+     * preserveOrder 为 true 时只合并相邻且组合相同的数据，保证按列表顺序插入
+     */
+    public int insertBatchSelective(List<T> entities, boolean preserveOrder) {
         if (entities == null || entities.isEmpty()) {
             return 0;
         }
         
-        int totalInserted = 0;
+        Map<BitSet, EntityPlan.Property[]> shapes = new HashMap<>();
+        Map<BitSet, InsertGroup<T>> groupByShape = new HashMap<>();
+        List<InsertGroup<T>> groups = new ArrayList<>();
+        InsertGroup<T> last = null;
         for (T entity : entities) {
-            if (insertSelective(entity)) {
-                totalInserted++;
+            // 自动设置时间戳
+            plan.setTimestamps(entity, true);
+            
+            BitSet mask = new BitSet(plan.properties.length);
+            for (EntityPlan.Property property : plan.properties) {
+                if (property.get(entity) != null) {
+                    mask.set(property.index);
+                }
+            }
+            if (mask.isEmpty()) {
+                continue;
+            }
+            
+            InsertGroup<T> group = preserveOrder
+                    ? (last != null && last.mask().equals(mask) ? last : null)
+                    : groupByShape.get(mask);
+            if (group == null) {
+                EntityPlan.Property[] columns = shapes.computeIfAbsent(mask, key -> {
+                    EntityPlan.Property[] selected = new EntityPlan.Property[key.cardinality()];
+                    int i = 0;
+                    for (int index = key.nextSetBit(0); index >= 0; index = key.nextSetBit(index + 1)) {
+                        selected[i++] = plan.properties[index];
+                    }
+                    return selected;
+                });
+                group = new InsertGroup<>(mask, columns, new ArrayList<>());
+                groups.add(group);
+                if (!preserveOrder) {
+                    groupByShape.put(mask, group);
+                }
             }
+            group.rows().add(entity);
+            last = group;
+        }
+        
+        int totalInserted = 0;
+        for (int count : executeInsertGroups(groups, Integer.MAX_VALUE, this::buildInsertSql)) {
+            totalInserted += count;
         }
         
         return totalInserted;
@@ -408,57 +1244,149 @@ public class BaseDao<T> {
     
     /**
      * 插入或者更新，若主键有值，则更新，若没有主键值，则插入
+     * <p>
+     * 主键有值时使用数据库原生的 upsert 语句（如 MySQL 的 ON DUPLICATE KEY UPDATE）一次完成，
+     * 冲突时不会更新创建时间字段；数据库不支持时先查询再更新或插入
      */
     public boolean insertOrUpdate(T entity, boolean ignoreNulls) {
+        Object pkValue = null;
         try {
             // 获取主键值
-            Object pkValue = null;
-            for (Field field : clazz.getFields()) {
-                for (TableInfo.ColumnInfo column : tableInfo.columns) {
-                    if (column.field.equals(field) && column.primaryKey) {
-                        pkValue = field.get(entity);
-                        break;
-                    }
-                }
-                if (pkValue != null) {
-                    break;
-                }
+            pkValue = plan.pk == null ? null : plan.pk.get(entity);
+            
+            // 主键没有值时直接插入
+            if (pkValue == null) {
+                return insert(entity, ignoreNulls);
+            }
+            
+            Dialect dialect = executor.dialect();
+            if (!dialect.supportsUpsert()) {
+                // 绕过实体缓存，以数据库中的实际数据为准
+                T existing = loadById(pkValue);
+                return existing != null ? updateById(entity, ignoreNulls) : insert(entity, ignoreNulls);
             }
             
-            // 如果主键有值，尝试更新
-            if (pkValue != null) {
-                T existing = selectOneById(pkValue);
-                if (existing != null) {
-                    return updateById(entity, ignoreNulls);
+            // 自动设置时间戳
+            plan.setTimestamps(entity, true);
+            
+            List<EntityPlan.Property> selected = new ArrayList<>();
+            for (EntityPlan.Property property : plan.properties) {
+                if (!ignoreNulls || property.get(entity) != null) {
+                    selected.add(property);
                 }
             }
+            EntityPlan.Property[] columns = selected.toArray(new EntityPlan.Property[0]);
+            
+            Object[] params = new Object[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                params[i] = columns[i].get(entity);
+            }
             
-            // 否则插入
-            return insert(entity, ignoreNulls);
+            return executor.update(buildUpsertSql(dialect, columns, 1), params) > 0;
         } catch (Exception e) {
             log.error("插入或更新数据失败: {}", e.getMessage());
             e.printStackTrace();
             return false;
+        } finally {
+            evict(pkValue);
+        }
+    }
+    
+    /**
+     * 批量插入或者更新，不会忽略 null 值
+     * <p>
+     * 按分块生成多行 upsert 语句，每个分块一条语句并单独提交；主键为空的数据不写入主键列，
+     * 以普通的多行 INSERT 插入，由数据库生成主键。
+     * 返回驱动报告的影响行数（MySQL 中更新的行计为 2）；数据库不支持 upsert 时逐条执行 {@link #insertOrUpdate(Object)}
+     */
+    public int upsertBatch(List<T> entities) {
+        if (entities == null || entities.isEmpty()) {
+            return 0;
+        }
+        
+        Dialect dialect = executor.dialect();
+        int total = 0;
+        if (!dialect.supportsUpsert()) {
+            for (T entity : entities) {
+                if (insertOrUpdate(entity)) {
+                    total++;
+                }
+            }
+            return total;
+        }
+        
+        for (T entity : entities) {
+            plan.setTimestamps(entity, true);
+        }
+        
+        // 主键为空时不能参与冲突判断，写入 NULL 主键在多数数据库中也会违反非空约束
+        List<T> keyed = new ArrayList<>(entities.size());
+        List<T> unkeyed = new ArrayList<>();
+        for (T entity : entities) {
+            (plan.pk == null || plan.pk.get(entity) == null ? unkeyed : keyed).add(entity);
+        }
+        try {
+            if (!keyed.isEmpty()) {
+                InsertGroup<T> group = new InsertGroup<>(null, plan.properties, keyed);
+                for (int count : executeInsertGroups(List.of(group), Integer.MAX_VALUE,
+                        (columns, rows) -> buildUpsertSql(dialect, columns, rows))) {
+                    total += count;
+                }
+            }
+            if (!unkeyed.isEmpty()) {
+                InsertGroup<T> group = new InsertGroup<>(null, plan.pk == null ? plan.properties : plan.nonPk, unkeyed);
+                for (int count : executeInsertGroups(List.of(group), Integer.MAX_VALUE, this::buildInsertSql)) {
+                    total += count;
+                }
+            }
+        } finally {
+            if (entityCache != null && plan.pk != null) {
+                for (T entity : entities) {
+                    evict(plan.pk.get(entity));
+                }
+            }
         }
+        return total;
     }
     
     // ==================== 新增的删除操作方法 ====================
     
     /**
      * 根据多个主键批量删除数据
+     * <p>
+     * 按 {@link #getDeleteChunkSize()} 切分为多条 DELETE ... WHERE pk IN (?, ...) 语句，
+     * 共用一个连接且每个分块单独提交，返回实际删除的行数
      */
     public int deleteBatchByIds(List<Object> ids) {
         if (ids == null || ids.isEmpty()) {
             return 0;
         }
         
-        int totalDeleted = 0;
-        for (Object id : ids) {
-            if (deleteById(id)) {
-                totalDeleted++;
+        int chunkSize = Math.min(deleteChunkSize, executor.dialect().maxParams());
+        int[] counts = new int[(ids.size() + chunkSize - 1) / chunkSize];
+        String chunkSql = buildDeleteByIdsSql(Math.min(chunkSize, ids.size()));
+        try {
+            executor.executeChunks(counts, chunk -> {
+                int from = chunk * chunkSize;
+                int to = Math.min(from + chunkSize, ids.size());
+                String sql = to - from == chunkSize ? chunkSql : buildDeleteByIdsSql(to - from);
+                return new SqlExecutor.Chunk(sql, ids.subList(from, to).toArray());
+            });
+        } catch (Exception e) {
+            log.error("批量删除数据失败: {}", e.getMessage());
+            e.printStackTrace();
+        } finally {
+            EntityCache<T> cache = entityCache;
+            if (cache != null) {
+                cache.invalidateAll(ids);
             }
         }
         
+        int totalDeleted = 0;
+        for (int count : counts) {
+            totalDeleted += count;
+        }
+        
         return totalDeleted;
     }
     
@@ -474,12 +1402,14 @@ public class BaseDao<T> {
                 sql.append(" WHERE ").append(queryWrapper.buildWhereClause(params));
             }
             
-            Integer result = sm.executeSQL(sql.toString(), params.toArray());
-            return result != null ? result : 0;
+            return executor.update(sql.toString(), params.toArray());
         } catch (Exception e) {
             log.error("根据条件删除数据失败: {}", e.getMessage());
             e.printStackTrace();
             return 0;
+        } finally {
+            // 无法得知影响了哪些主键，清空整个缓存
+            evictAll();
         }
     }
     
@@ -489,53 +1419,100 @@ public class BaseDao<T> {
      * 根据主键来更新数据到数据库
      */
     public boolean updateById(T entity, boolean ignoreNulls) {
+        Object pkValue = null;
         try {
-            // 自动设置更新时间戳
-            setTimestamps(entity, false);
-            
-            List<String> setParts = new ArrayList<>();
-            List<Object> values = new ArrayList<>();
-            Object pkValue = null;
-            
-            for (Field field : clazz.getFields()) {
-                String columnName = camelToUnder(field.getName());
-                Object value = field.get(entity);
-                
-                // 检查是否为主键字段
-                boolean isPrimaryKey = false;
-                for (TableInfo.ColumnInfo column : tableInfo.columns) {
-                    if (column.field.equals(field) && column.primaryKey) {
-                        isPrimaryKey = true;
-                        pkValue = value;
-                        break;
-                    }
-                }
-                
-                // 非主键字段且符合条件的才加入更新列表
-                if (!isPrimaryKey && (!ignoreNulls || value != null)) {
-                    setParts.add(columnName + " = ?");
-                    values.add(value);
-                }
-            }
-            
-            if (setParts.isEmpty() || pkValue == null) {
+            pkValue = plan.pk == null ? null : plan.pk.get(entity);
+            if (pkValue == null) {
                 return false;
             }
             
-            // 添加主键值到参数列表末尾
-            values.add(pkValue);
+            DirtyTracker tracker = dirtyTracker;
+            BitSet dirty = tracker == null ? null : tracker.dirty(entity);
+            if (dirty != null) {
+                return updateDirty(entity, pkValue, dirty, ignoreNulls, tracker);
+            }
             
-            String sql = "UPDATE " + tableInfo.name + " SET " + 
-                        String.join(", ", setParts) + " WHERE " + tableInfo.pk + " = ?";
+            // 自动设置更新时间戳
+            plan.setTimestamps(entity, false);
             
-            Integer result = sm.executeSQL(sql, values.toArray());
+            int result;
+            if (!ignoreNulls) {
+                // 全字段更新直接使用预先生成的 SQL
+                EntityPlan.Property[] columns = plan.nonPk;
+                if (columns.length == 0) {
+                    return false;
+                }
+                Object[] params = new Object[columns.length + 1];
+                for (int i = 0; i < columns.length; i++) {
+                    params[i] = columns[i].get(entity);
+                }
+                params[columns.length] = pkValue;
+                result = executor.update(plan.updateByIdSql, params);
+            } else {
+                List<Object> values = new ArrayList<>(plan.nonPk.length + 1);
+                String setClause = buildSetClause(entity, true, values);
+                if (setClause == null) {
+                    return false;
+                }
+                
+                // 添加主键值到参数列表末尾
+                values.add(pkValue);
+                
+                String sql = "UPDATE " + tableInfo.name + " SET " + setClause + " WHERE " + tableInfo.pk + " = ?";
+                result = executor.update(sql, values.toArray());
+            }
             
-            return result != null && result > 0;
+            return result > 0;
         } catch (Exception e) {
             log.error("更新数据失败: {}", e.getMessage());
             e.printStackTrace();
             return false;
+        } finally {
+            evict(pkValue);
+        }
+    }
+    
+    /* 只更新发生变化的列及更新时间字段，没有变化时不修改实体直接返回 true */
+    private boolean updateDirty(T entity, Object pkValue, BitSet dirty, boolean ignoreNulls,
+                                DirtyTracker tracker) throws SQLException {
+        if (ignoreNulls) {
+            for (int i = dirty.nextSetBit(0); i >= 0; i = dirty.nextSetBit(i + 1)) {
+                if (plan.properties[i].get(entity) == null) {
+                    dirty.clear(i);
+                }
+            }
+        }
+        if (dirty.isEmpty()) {
+            return true;
+        }
+        // 确定需要写入后再设置更新时间戳
+        plan.setTimestamps(entity, false);
+        for (EntityPlan.Property property : plan.updatedAt) {
+            if (property != plan.pk) {
+                dirty.set(property.index);
+            }
+        }
+        
+        StringBuilder sql = new StringBuilder("UPDATE ").append(tableInfo.name).append(" SET ");
+        Object[] params = new Object[dirty.cardinality() + 1];
+        int i = 0;
+        for (int index = dirty.nextSetBit(0); index >= 0; index = dirty.nextSetBit(index + 1)) {
+            EntityPlan.Property property = plan.properties[index];
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(property.column).append(" = ?");
+            params[i++] = property.get(entity);
         }
+        sql.append(" WHERE ").append(tableInfo.pk).append(" = ?");
+        params[i] = pkValue;
+        
+        int result = executor.update(sql.toString(), params);
+        if (result > 0) {
+            // 更新成功后以当前值作为新的原始值
+            tracker.track(entity);
+        }
+        return result > 0;
     }
     
     /**
@@ -551,89 +1528,241 @@ public class BaseDao<T> {
     public int updateByQuery(T entity, boolean ignoreNulls, QueryWrapper<T> queryWrapper) {
         try {
             // 自动设置更新时间戳
-            setTimestamps(entity, false);
+            plan.setTimestamps(entity, false);
             
-            List<String> setParts = new ArrayList<>();
             List<Object> values = new ArrayList<>();
-            
-            for (Field field : clazz.getFields()) {
-                String columnName = camelToUnder(field.getName());
-                Object value = field.get(entity);
-                
-                // 检查是否为主键字段
-                boolean isPrimaryKey = false;
-                for (TableInfo.ColumnInfo column : tableInfo.columns) {
-                    if (column.field.equals(field) && column.primaryKey) {
-                        isPrimaryKey = true;
-                        break;
-                    }
-                }
-                
-                // 非主键字段且符合条件的才加入更新列表
-                if (!isPrimaryKey && (!ignoreNulls || value != null)) {
-                    setParts.add(columnName + " = ?");
-                    values.add(value);
-                }
-            }
-            
-            if (setParts.isEmpty()) {
+            String setClause = buildSetClause(entity, ignoreNulls, values);
+            if (setClause == null) {
                 return 0;
             }
             
             StringBuilder sql = new StringBuilder("UPDATE ").append(tableInfo.name)
-                    .append(" SET ").append(String.join(", ", setParts));
+                    .append(" SET ").append(setClause);
             
             if (queryWrapper.hasConditions()) {
                 sql.append(" WHERE ").append(queryWrapper.buildWhereClause(values));
             }
             
-            Integer result = sm.executeSQL(sql.toString(), values.toArray());
-            return result != null ? result : 0;
+            return executor.update(sql.toString(), values.toArray());
         } catch (Exception e) {
             log.error("根据条件更新数据失败: {}", e.getMessage());
             e.printStackTrace();
             return 0;
+        } finally {
+            // 无法得知影响了哪些主键，清空整个缓存
+            evictAll();
+        }
+    }
+
+    /**
+     * 按主键批量更新指定的列，所有行在一个事务中以 JDBC 批处理执行，供写缓冲使用
+     *
+     * @param columns 要更新的非主键列
+     * @param rows    每行依次为各列的值，最后一个元素为主键值
+     * @return 更新的行数
+     */
+    int updateBatchByIds(EntityPlan.Property[] columns, List<Object[]> rows) throws SQLException {
+        StringBuilder sql = new StringBuilder("UPDATE ").append(tableInfo.name).append(" SET ");
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(columns[i].column).append(" = ?");
+        }
+        sql.append(" WHERE ").append(tableInfo.pk).append(" = ?");
+        try {
+            int total = 0;
+            for (int count : executor.executeBatch(sql.toString(), rows)) {
+                total += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0);
+            }
+            return total;
+        } finally {
+            if (entityCache != null) {
+                for (Object[] row : rows) {
+                    evict(row[row.length - 1]);
+                }
+            }
+        }
+    }
+
+    /**
+     * 创建写缓冲，对同一主键的多次更新在内存中合并，按时间间隔或积压数量批量写入
+     * 需要在程序退出前调用 {@link WriteBehindBuffer#close()} 写入剩余的数据
+     *
+     * @param interval       定时写入的间隔
+     * @param flushThreshold 积压的主键数量达到该值时立即写入
+     */
+    public WriteBehindBuffer<T> writeBehind(Duration interval, int flushThreshold) {
+        return new WriteBehindBuffer<>(this, plan, interval, flushThreshold);
+    }
+
+    /* 写操作后使实体缓存中对应主键的数据失效 */
+    private void evict(Object id) {
+        EntityCache<T> cache = entityCache;
+        if (cache != null) {
+            cache.invalidate(id);
+        }
+    }
+
+    /* 按条件写入后清空实体缓存 */
+    private void evictAll() {
+        EntityCache<T> cache = entityCache;
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    /* 开启脏数据跟踪时记录查询得到的实体的原始值 */
+    private T track(T entity) {
+        DirtyTracker tracker = dirtyTracker;
+        if (tracker != null && entity != null) {
+            tracker.track(entity);
+        }
+        return entity;
+    }
+
+    private List<T> trackAll(List<T> entities) {
+        DirtyTracker tracker = dirtyTracker;
+        if (tracker != null) {
+            for (T entity : entities) {
+                tracker.track(entity);
+            }
+        }
+        return entities;
+    }
+
+    /* 复制缓存的查询结果，调用方修改返回的实体不会影响缓存 */
+    @SuppressWarnings("unchecked")
+    private List<T> copyOf(List<T> cached) {
+        List<T> copies = new ArrayList<>(cached.size());
+        if (!plan.isInstantiable()) {
+            copies.addAll(cached);
+            return copies;
         }
+        for (T entity : cached) {
+            copies.add((T) plan.copy(entity));
+        }
+        return copies;
+    }
+
+    /* 粗略估算查询结果占用的内存（字节） */
+    private long estimateSize(List<T> records) {
+        return 64L + records.size() * (16L + plan.properties.length * 24L);
     }
 
-    private static String camelToUnder(String camel) {
-        return camel.replaceAll("([a-z])([A-Z])", "$1_$2").toLowerCase();
+    /* 字段组合相同的一组待插入数据 */
+    private record InsertGroup<E>(BitSet mask, EntityPlan.Property[] columns, List<E> rows) {
     }
 
-    /* 自动设置时间戳 */
-    private void setTimestamps(T entity, boolean isInsert) {
-        Date now = new Date();
+    /* 按分块执行多组插入，所有分块共用一个连接并各自提交，返回每个分块的插入行数 */
+    private int[] executeInsertGroups(List<InsertGroup<T>> groups, int size,
+                                      BiFunction<EntityPlan.Property[], Integer, String> sqlBuilder) {
+        // 分块描述：{组下标, 起始行, 结束行}
+        List<int[]> chunks = new ArrayList<>();
+        int[] rowsPerChunk = new int[groups.size()];
+        String[] chunkSql = new String[groups.size()];
+        for (int g = 0; g < groups.size(); g++) {
+            InsertGroup<T> group = groups.get(g);
+            rowsPerChunk[g] = chunkRows(size, group.columns().length);
+            chunkSql[g] = sqlBuilder.apply(group.columns(), rowsPerChunk[g]);
+            for (int from = 0; from < group.rows().size(); from += rowsPerChunk[g]) {
+                chunks.add(new int[]{g, from, Math.min(from + rowsPerChunk[g], group.rows().size())});
+            }
+        }
         
+        int[] counts = new int[chunks.size()];
         try {
-            for (TableInfo.ColumnInfo column : tableInfo.columns) {
-                if (column.isCreatedAt && isInsert) {
-                    // 只在插入时设置创建时间
-                    setFieldValue(entity, column.field, now);
-                } else if (column.isUpdatedAt) {
-                    // 插入和更新时都设置更新时间
-                    setFieldValue(entity, column.field, now);
+            executor.executeChunks(counts, i -> {
+                int[] chunk = chunks.get(i);
+                InsertGroup<T> group = groups.get(chunk[0]);
+                EntityPlan.Property[] columns = group.columns();
+                int rows = chunk[2] - chunk[1];
+                Object[] params = new Object[rows * columns.length];
+                int p = 0;
+                for (int row = chunk[1]; row < chunk[2]; row++) {
+                    T entity = group.rows().get(row);
+                    for (EntityPlan.Property property : columns) {
+                        params[p++] = property.get(entity);
+                    }
                 }
-            }
-        } catch (IllegalAccessException e) {
-            log.error("设置时间戳失败: {}", e.getMessage());
+                String sql = rows == rowsPerChunk[chunk[0]] ? chunkSql[chunk[0]] : sqlBuilder.apply(columns, rows);
+                return new SqlExecutor.Chunk(sql, params);
+            });
+        } catch (Exception e) {
+            log.error("批量插入数据失败: {}", e.getMessage());
             e.printStackTrace();
         }
+        
+        return counts;
+    }
+
+    /* 实际使用的 fetchSize */
+    private int resolveFetchSize() {
+        if (fetchSize != 0) {
+            return fetchSize;
+        }
+        return executor.dialect() == Dialect.MYSQL ? Integer.MIN_VALUE : 1000;
     }
 
-    /* 设置字段值，支持不同的时间类型 */
-    private void setFieldValue(T entity, Field field, Date date) throws IllegalAccessException {
-        Class<?> fieldType = field.getType();
-        
-        if (fieldType == Date.class) {
-            field.set(entity, date);
-        } else if (fieldType == Timestamp.class) {
-            field.set(entity, new Timestamp(date.getTime()));
-        } else if (fieldType == long.class || fieldType == Long.class) {
-            field.set(entity, date.getTime());
-        } else if (fieldType == String.class) {
-            field.set(entity, date.toString());
+    /* 每个分块的行数，不超过 size 且参数数量不超过 batchParamLimit 与数据库的上限 */
+    private int chunkRows(int size, int columnCount) {
+        int limit = Math.min(batchParamLimit, executor.dialect().maxParams());
+        return Math.max(1, Math.min(size, limit / columnCount));
+    }
+
+    /* 构建多行 INSERT 语句 */
+    private String buildInsertSql(EntityPlan.Property[] columns, int rows) {
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(tableInfo.name).append(" (");
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(columns[i].column);
+        }
+        String row = "(" + SqlExecutor.placeholders(columns.length) + ")";
+        sql.append(") VALUES ");
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(row);
+        }
+        return sql.toString();
+    }
+
+    /* 构建多行 upsert 语句，主键冲突时更新除主键和创建时间以外的列 */
+    private String buildUpsertSql(Dialect dialect, EntityPlan.Property[] columns, int rows) {
+        String[] columnNames = new String[columns.length];
+        List<String> updateColumns = new ArrayList<>(columns.length);
+        for (int i = 0; i < columns.length; i++) {
+            EntityPlan.Property property = columns[i];
+            columnNames[i] = property.column;
+            if (property != plan.pk && (property.info == null || !property.info.isCreatedAt)) {
+                updateColumns.add(property.column);
+            }
+        }
+        return dialect.upsertSql(tableInfo.name, tableInfo.pk, columnNames, updateColumns.toArray(new String[0]), rows);
+    }
+
+    /* 构建按主键批量删除的语句 */
+    private String buildDeleteByIdsSql(int count) {
+        return "DELETE FROM " + tableInfo.name + " WHERE " + tableInfo.pk + " IN (" + SqlExecutor.placeholders(count) + ")";
+    }
+
+    /* 构建非主键字段的 SET 子句，参数依次加入 params，没有可更新的字段时返回 null */
+    private String buildSetClause(T entity, boolean ignoreNulls, List<Object> params) {
+        StringBuilder setClause = new StringBuilder();
+        for (EntityPlan.Property property : plan.nonPk) {
+            Object value = property.get(entity);
+            if (!ignoreNulls || value != null) {
+                if (!setClause.isEmpty()) {
+                    setClause.append(", ");
+                }
+                setClause.append(property.column).append(" = ?");
+                params.add(value);
+            }
         }
-        // 可以根据需要添加更多类型支持
+        return setClause.isEmpty() ? null : setClause.toString();
     }
 
     /* 创建表 */
@@ -649,6 +1778,7 @@ public class BaseDao<T> {
         if (dropIfExists) {
             try {
                 sm.executeSQL("DROP TABLE IF EXISTS " + tableInfo.name);
+                TableVersions.bump(tableInfo.name);
             } catch (Exception ignored) {
                 // 忽略表不存在的错误
             }
@@ -0,0 +1,78 @@
+package cn.carljoy.easysql;
+
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * 编译后的查询
+ * 不可变，SQL 文本按查询结构（表、条件列与操作符、IN 参数个数、排序、分页）缓存，执行时只绑定参数
+ *
+ * @param <T> 实体类型
+ */
+public final class CompiledQuery<T> {
+    /**
+     * -- GETTER --
+     *  获取实体类型
+     */
+    @Getter
+    private final Class<T> entityClass;
+    /**
+     * -- GETTER --
+     *  获取 SQL 文本
+     */
+    @Getter
+    private final String sql;
+    private final Object[] params;
+    /**
+     * -- GETTER --
+     *  获取查询缓存的过期时间，为 null 时使用缓存的默认值
+     */
+    @Getter
+    private final Duration cacheTtl;
+
+    CompiledQuery(Class<T> entityClass, String sql, Object[] params, Duration cacheTtl) {
+        this.entityClass = entityClass;
+        this.sql = sql;
+        this.params = params;
+        this.cacheTtl = cacheTtl;
+    }
+
+    /**
+     * 获取参数副本
+     */
+    public Object[] getParams() {
+        return params.clone();
+    }
+
+    /**
+     * 使用相同的 SQL 绑定新的参数，参数个数必须与原查询一致
+     */
+    public CompiledQuery<T> bind(Object... params) {
+        if (params.length != this.params.length) {
+            throw new IllegalArgumentException("参数个数不匹配，需要 " + this.params.length + " 个，实际 " + params.length + " 个");
+        }
+        return new CompiledQuery<>(entityClass, sql, params.clone(), cacheTtl);
+    }
+
+    /**
+     * 使用新的查询缓存过期时间，为 0 时不使用缓存
+     */
+    public CompiledQuery<T> withCacheTtl(Duration cacheTtl) {
+        return new CompiledQuery<>(entityClass, sql, params, cacheTtl);
+    }
+
+    /* 供执行器直接使用，不复制 */
+    Object[] params() {
+        return params;
+    }
+
+    @Override
+    public String toString() {
+        return "CompiledQuery{" +
+                "sql='" + sql + '\'' +
+                ", params=" + Arrays.toString(params) +
+                '}';
+    }
+}
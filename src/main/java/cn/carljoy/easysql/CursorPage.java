@@ -0,0 +1,238 @@
+package cn.carljoy.easysql;
+
+import lombok.Getter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * 游标分页（keyset）查询结果类
+ * 与 {@link PageResult} 不同，不统计总数，通过 nextCursor 继续获取下一页
+ *
+ * @param <T> 实体类型
+ */
+@Getter
+public class CursorPage<T> {
+    /**
+     * -- GETTER --
+     *  获取当前页数据
+     */
+    private final List<T> records;
+    /**
+     * -- GETTER --
+     *  获取每页大小
+     */
+    private final int pageSize;
+    /**
+     * -- GETTER --
+     *  获取下一页的游标，没有下一页时为 null
+     */
+    private final String nextCursor;
+
+    public CursorPage(List<T> records, int pageSize, String nextCursor) {
+        this.records = records;
+        this.pageSize = pageSize;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * 是否有下一页
+     */
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    @Override
+    public String toString() {
+        return "CursorPage{" +
+                "records=" + records.size() + " items" +
+                ", pageSize=" + pageSize +
+                ", hasNext=" + hasNext() +
+                '}';
+    }
+
+    /* ---------- 游标编解码 ---------- */
+
+    // 可以作为排序键的字段类型
+    private static final Set<Class<?>> KEY_TYPES = Set.of(
+            int.class, Integer.class, long.class, Long.class, short.class, Short.class, byte.class, Byte.class,
+            double.class, Double.class, float.class, Float.class, boolean.class, Boolean.class,
+            BigDecimal.class, BigInteger.class, String.class, UUID.class,
+            Timestamp.class, Date.class, LocalDateTime.class, LocalDate.class, LocalTime.class,
+            Instant.class, OffsetDateTime.class);
+
+    /**
+     * 字段类型能否作为游标分页的排序键
+     */
+    static boolean supports(Class<?> type) {
+        return KEY_TYPES.contains(type);
+    }
+
+    /**
+     * 将排序键的值编码为不透明的游标字符串，不支持的类型抛出 IllegalArgumentException
+     */
+    static String encode(Object[] values) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(values.length);
+            for (Object value : values) {
+                writeValue(out, value);
+            }
+            out.flush();
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+        } catch (IOException e) {
+            throw new IllegalStateException("无法编码分页游标", e);
+        }
+    }
+
+    /**
+     * 解码游标字符串，值的数量必须与 expected 一致
+     */
+    static Object[] decode(String cursor, int expected) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(cursor)));
+            int count = in.readUnsignedByte();
+            if (count != expected) {
+                throw new IllegalArgumentException("无效的分页游标: " + cursor);
+            }
+            Object[] values = new Object[count];
+            for (int i = 0; i < count; i++) {
+                values[i] = readValue(in);
+            }
+            return values;
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("无效的分页游标: " + cursor, e);
+        }
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte('N');
+        } else if (value instanceof Integer) {
+            out.writeByte('I');
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte('J');
+            out.writeLong((Long) value);
+        } else if (value instanceof Double) {
+            out.writeByte('D');
+            out.writeDouble((Double) value);
+        } else if (value instanceof Float) {
+            out.writeByte('F');
+            out.writeFloat((Float) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte('Z');
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Timestamp) {
+            out.writeByte('T');
+            out.writeLong(((Timestamp) value).getTime());
+            out.writeInt(((Timestamp) value).getNanos());
+        } else if (value instanceof Date) {
+            out.writeByte('d');
+            out.writeLong(((Date) value).getTime());
+        } else if (value instanceof LocalDateTime) {
+            out.writeByte('L');
+            out.writeUTF(value.toString());
+        } else if (value instanceof BigDecimal) {
+            out.writeByte('B');
+            out.writeUTF(value.toString());
+        } else if (value instanceof String) {
+            out.writeByte('S');
+            out.writeUTF((String) value);
+        } else if (value instanceof Short) {
+            out.writeByte('H');
+            out.writeShort((Short) value);
+        } else if (value instanceof Byte) {
+            out.writeByte('Y');
+            out.writeByte((Byte) value);
+        } else if (value instanceof BigInteger) {
+            out.writeByte('G');
+            out.writeUTF(value.toString());
+        } else if (value instanceof UUID) {
+            out.writeByte('U');
+            out.writeLong(((UUID) value).getMostSignificantBits());
+            out.writeLong(((UUID) value).getLeastSignificantBits());
+        } else if (value instanceof LocalDate) {
+            out.writeByte('A');
+            out.writeLong(((LocalDate) value).toEpochDay());
+        } else if (value instanceof LocalTime) {
+            out.writeByte('M');
+            out.writeLong(((LocalTime) value).toNanoOfDay());
+        } else if (value instanceof Instant) {
+            out.writeByte('i');
+            out.writeLong(((Instant) value).getEpochSecond());
+            out.writeInt(((Instant) value).getNano());
+        } else if (value instanceof OffsetDateTime) {
+            out.writeByte('O');
+            out.writeUTF(value.toString());
+        } else {
+            // 转成字符串后与带类型的列比较会出错或得到错误的顺序
+            throw new IllegalArgumentException("不支持作为游标分页排序键的类型: " + value.getClass().getName());
+        }
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+        int tag = in.readUnsignedByte();
+        switch (tag) {
+            case 'N':
+                return null;
+            case 'I':
+                return in.readInt();
+            case 'J':
+                return in.readLong();
+            case 'D':
+                return in.readDouble();
+            case 'F':
+                return in.readFloat();
+            case 'Z':
+                return in.readBoolean();
+            case 'T':
+                Timestamp timestamp = new Timestamp(in.readLong());
+                timestamp.setNanos(in.readInt());
+                return timestamp;
+            case 'd':
+                return new Timestamp(in.readLong());
+            case 'L':
+                return LocalDateTime.parse(in.readUTF());
+            case 'B':
+                return new BigDecimal(in.readUTF());
+            case 'S':
+                return in.readUTF();
+            case 'H':
+                return in.readShort();
+            case 'Y':
+                return in.readByte();
+            case 'G':
+                return new BigInteger(in.readUTF());
+            case 'U':
+                return new UUID(in.readLong(), in.readLong());
+            case 'A':
+                return LocalDate.ofEpochDay(in.readLong());
+            case 'M':
+                return LocalTime.ofNanoOfDay(in.readLong());
+            case 'i':
+                return Instant.ofEpochSecond(in.readLong(), in.readInt());
+            case 'O':
+                return OffsetDateTime.parse(in.readUTF());
+            default:
+                throw new IOException("未知的游标值类型: " + tag);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package cn.carljoy.easysql;
+
+import java.util.Locale;
+
+/**
+ * 数据库方言
+ * 根据 JDBC 元数据中的产品名识别，用于生成各数据库特有的语句（如 upsert）
+ */
+public enum Dialect {
+    MYSQL,      // MySQL / MariaDB
+    POSTGRESQL,
+    SQLITE,
+    H2,
+    OTHER;      // 未识别的数据库，不支持原生 upsert
+
+    public static Dialect of(String productName) {
+        if (productName == null) {
+            return OTHER;
+        }
+        String name = productName.toLowerCase(Locale.ROOT);
+        if (name.contains("mysql") || name.contains("mariadb")) {
+            return MYSQL;
+        } else if (name.contains("postgresql")) {
+            return POSTGRESQL;
+        } else if (name.contains("sqlite")) {
+            return SQLITE;
+        } else if (name.equals("h2")) {
+            return H2;
+        }
+        return OTHER;
+    }
+
+    /**
+     * 单条语句允许的最大参数数量，未识别的数据库使用保守的默认值
+     */
+    public int maxParams() {
+        return switch (this) {
+            case MYSQL, H2 -> 65535;
+            case POSTGRESQL -> 32767;
+            case SQLITE -> 32766;
+            case OTHER -> 2000;
+        };
+    }
+
+    /**
+     * 是否支持单条语句完成的 upsert
+     */
+    public boolean supportsUpsert() {
+        return this != OTHER;
+    }
+
+    /**
+     * 构建多行 upsert 语句，主键冲突时更新 updateColumns，否则插入
+     * <p>
+     * H2 使用 MERGE INTO ... USING (VALUES ...)，冲突时同样只更新 updateColumns
+     *
+     * @param table         表名
+     * @param pk            主键列名
+     * @param columns       插入的列
+     * @param updateColumns 主键冲突时更新的列
+     * @param rows          行数
+     */
+    public String upsertSql(String table, String pk, String[] columns, String[] updateColumns, int rows) {
+        if (!supportsUpsert()) {
+            throw new UnsupportedOperationException("当前数据库不支持 upsert: " + this);
+        }
+
+        if (this == H2) {
+            return h2MergeSql(table, pk, columns, updateColumns, rows);
+        }
+
+        StringBuilder sql = new StringBuilder("INSERT INTO ")
+                .append(table).append(" (").append(String.join(", ", columns)).append(')');
+        sql.append(" VALUES ");
+        appendRows(sql, columns.length, rows);
+
+        switch (this) {
+            case MYSQL:
+                sql.append(" ON DUPLICATE KEY UPDATE ");
+                if (updateColumns.length == 0) {
+                    // 没有需要更新的列时保持原值
+                    sql.append(pk).append(" = ").append(pk);
+                }
+                for (int i = 0; i < updateColumns.length; i++) {
+                    if (i > 0) {
+                        sql.append(", ");
+                    }
+                    sql.append(updateColumns[i]).append(" = VALUES(").append(updateColumns[i]).append(')');
+                }
+                break;
+            case POSTGRESQL:
+            case SQLITE:
+                sql.append(" ON CONFLICT (").append(pk).append(')');
+                if (updateColumns.length == 0) {
+                    sql.append(" DO NOTHING");
+                    break;
+                }
+                sql.append(" DO UPDATE SET ");
+                for (int i = 0; i < updateColumns.length; i++) {
+                    if (i > 0) {
+                        sql.append(", ");
+                    }
+                    sql.append(updateColumns[i]).append(" = EXCLUDED.").append(updateColumns[i]);
+                }
+                break;
+            default:
+                break;
+        }
+        return sql.toString();
+    }
+
+    /*
+     * MERGE INTO t USING (VALUES (?, ?), ...) AS s (c1, c2) ON t.pk = s.pk
+     * WHEN MATCHED THEN UPDATE SET c2 = s.c2 WHEN NOT MATCHED THEN INSERT (c1, c2) VALUES (s.c1, s.c2)
+     * MERGE INTO ... KEY 会覆盖全部列，无法保留创建时间
+     */
+    private static String h2MergeSql(String table, String pk, String[] columns, String[] updateColumns, int rows) {
+        StringBuilder sql = new StringBuilder("MERGE INTO ").append(table).append(" t USING (VALUES ");
+        appendRows(sql, columns.length, rows);
+        sql.append(") AS s (").append(String.join(", ", columns)).append(") ON t.")
+                .append(pk).append(" = s.").append(pk);
+        if (updateColumns.length > 0) {
+            sql.append(" WHEN MATCHED THEN UPDATE SET ");
+            for (int i = 0; i < updateColumns.length; i++) {
+                if (i > 0) {
+                    sql.append(", ");
+                }
+                sql.append(updateColumns[i]).append(" = s.").append(updateColumns[i]);
+            }
+        }
+        sql.append(" WHEN NOT MATCHED THEN INSERT (").append(String.join(", ", columns)).append(") VALUES (");
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append("s.").append(columns[i]);
+        }
+        return sql.append(')').toString();
+    }
+
+    private static void appendRows(StringBuilder sql, int columns, int rows) {
+        String row = "(" + SqlExecutor.placeholders(columns) + ")";
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(row);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package cn.carljoy.easysql;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 脏数据跟踪
+ * 以弱引用按对象身份保存查询得到的实体的原始值，实体被回收后快照随之清理，
+ * 更新时比较当前值与快照得到发生变化的列
+ */
+final class DirtyTracker {
+    private final EntityPlan plan;
+    private final Map<IdentityKey, Object[]> snapshots = new ConcurrentHashMap<>();
+    private final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+
+    DirtyTracker(EntityPlan plan) {
+        this.plan = plan;
+    }
+
+    /**
+     * 记录实体当前的值作为原始值
+     */
+    void track(Object entity) {
+        expunge();
+        snapshots.put(new IdentityKey(entity, queue), snapshot(entity));
+    }
+
+    /**
+     * 获取发生变化的非主键列（按 plan.properties 下标），更新时间字段不参与比较
+     *
+     * @return 实体未被跟踪时返回 null
+     */
+    BitSet dirty(Object entity) {
+        Object[] original = snapshots.get(new IdentityKey(entity, null));
+        if (original == null) {
+            return null;
+        }
+        BitSet dirty = new BitSet(original.length);
+        for (EntityPlan.Property property : plan.nonPk) {
+            if (property.info != null && property.info.isUpdatedAt) {
+                continue;
+            }
+            if (!Objects.deepEquals(original[property.index], property.get(entity))) {
+                dirty.set(property.index);
+            }
+        }
+        return dirty;
+    }
+
+    /* 当前跟踪的实体数量 */
+    int size() {
+        expunge();
+        return snapshots.size();
+    }
+
+    /* 复制可变的值，避免原地修改后无法发现变化 */
+    private Object[] snapshot(Object entity) {
+        Object[] values = plan.values(entity);
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] instanceof Date date) {
+                values[i] = date.clone();
+            } else if (values[i] instanceof byte[] bytes) {
+                values[i] = bytes.clone();
+            }
+        }
+        return values;
+    }
+
+    /* 清理已被回收的实体的快照 */
+    private void expunge() {
+        Reference<?> ref;
+        while ((ref = queue.poll()) != null) {
+            snapshots.remove(ref);
+        }
+    }
+
+    /* 按对象身份比较的弱引用键 */
+    private static final class IdentityKey extends WeakReference<Object> {
+        private final int hash;
+
+        IdentityKey(Object referent, ReferenceQueue<Object> queue) {
+            super(referent, queue);
+            this.hash = System.identityHashCode(referent);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof IdentityKey other)) {
+                return false;
+            }
+            Object referent = get();
+            return referent != null && referent == other.get();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package cn.carljoy.easysql;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 按主键缓存实体，基于 Caffeine（W-TinyLFU 淘汰策略）
+ * <p>
+ * 由 {@link BaseDao#selectOneById(Object)} 与 {@link BaseDao#selectByIds(java.util.Collection)} 填充，写操作后自动失效；
+ * 缓存中保存的是私有副本，每次读取都返回新的副本，调用方修改返回的实体不会影响缓存。
+ * 副本为浅拷贝，其中 Date 类型的字段值会被复制，其他可变对象仍然共享。
+ * <p>
+ * 需要在项目中引入 com.github.ben-manes.caffeine:caffeine
+ *
+ * @param <T> 实体类型
+ */
+public final class EntityCache<T> {
+    private final Cache<Object, T> cache;
+    private final EntityPlan plan;
+
+    EntityCache(EntityPlan plan, Caffeine<Object, Object> builder) {
+        if (!plan.isInstantiable()) {
+            throw new IllegalStateException("实体缺少无参构造器，无法复制缓存的实例");
+        }
+        this.plan = plan;
+        this.cache = builder.recordStats().build();
+    }
+
+    /* 按数量上限和写入后过期时间创建缓存构建器，ttl 为 null 时不过期 */
+    static Caffeine<Object, Object> builder(long maximumSize, Duration ttl) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder().maximumSize(maximumSize);
+        return ttl == null ? builder : builder.expireAfterWrite(ttl);
+    }
+
+    /**
+     * 读取缓存，未命中时调用 loader 从数据库加载；loader 返回 null 时不缓存
+     * 加载过程中对同一主键的失效操作会等待加载完成后再移除，不会留下旧数据
+     */
+    T get(Object id, Function<Object, T> loader) {
+        T cached = cache.get(EntityPlan.idKey(id), key -> loader.apply(id));
+        return cached == null ? null : copy(cached);
+    }
+
+    /**
+     * 读取缓存，未命中时返回 null，不会加载
+     */
+    T getIfPresent(Object id) {
+        T cached = cache.getIfPresent(EntityPlan.idKey(id));
+        return cached == null ? null : copy(cached);
+    }
+
+    /**
+     * 写入批量加载的实体；加载期间表被修改（版本号不再是 version）时不写入。
+     * 写操作先递增版本号再使缓存失效，因此无论与失效操作如何交错都不会留下旧数据
+     *
+     * @param entities 从数据库加载的实体，缓存保存其副本
+     * @param table    表名
+     * @param version  加载前读取的表版本号
+     */
+    void putAll(Collection<T> entities, String table, long version) {
+        for (T entity : entities) {
+            Object id = plan.pk.get(entity);
+            if (id == null) {
+                continue;
+            }
+            cache.asMap().compute(EntityPlan.idKey(id),
+                    (key, old) -> TableVersions.get(table) == version ? copy(entity) : old);
+        }
+    }
+
+    /**
+     * 使指定主键的缓存失效
+     */
+    public void invalidate(Object id) {
+        if (id != null) {
+            cache.invalidate(EntityPlan.idKey(id));
+        }
+    }
+
+    /**
+     * 使多个主键的缓存失效
+     */
+    public void invalidateAll(Collection<?> ids) {
+        List<Object> keys = new ArrayList<>(ids.size());
+        for (Object id : ids) {
+            if (id != null) {
+                keys.add(EntityPlan.idKey(id));
+            }
+        }
+        cache.invalidateAll(keys);
+    }
+
+    /**
+     * 清空整个缓存
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /* 命中次数 */
+    public long getHits() {
+        return cache.stats().hitCount();
+    }
+
+    /* 未命中次数 */
+    public long getMisses() {
+        return cache.stats().missCount();
+    }
+
+    /* 因超出容量或过期被淘汰的数量 */
+    public long getEvictions() {
+        return cache.stats().evictionCount();
+    }
+
+    /* 命中率，没有请求时为 1.0 */
+    public double getHitRate() {
+        return cache.stats().hitRate();
+    }
+
+    /* 当前缓存的实体数量（估计值） */
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    @Override
+    public String toString() {
+        CacheStats stats = cache.stats();
+        return "EntityCache{" +
+                "size=" + size() +
+                ", hits=" + stats.hitCount() +
+                ", misses=" + stats.missCount() +
+                ", evictions=" + stats.evictionCount() +
+                '}';
+    }
+
+    @SuppressWarnings("unchecked")
+    private T copy(T entity) {
+        return (T) plan.copy(entity);
+    }
+}
@@ -0,0 +1,284 @@
+package cn.carljoy.easysql;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.LongFunction;
+
+/**
+ * 实体访问计划
+ * 每个实体类只构建一次，预先解析列名、主键、时间戳字段以及基于 MethodHandle 的读写器，
+ * 供 DAO 的读写热路径直接使用，避免每次调用都反射扫描字段
+ */
+public final class EntityPlan {
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+
+    public final Property[] properties;  // 全部可映射的字段（按声明顺序）
+    public final Property pk;            // 主键字段，未找到时为 null
+    public final Property[] nonPk;       // 非主键字段
+    public final Property[] createdAt;   // 创建时间字段
+    public final Property[] updatedAt;   // 更新时间字段
+    public final String updateByIdSql;   // 全字段按主键更新的 SQL
+    public final String selectByIdSql;   // 按主键查询的 SQL
+    public final String deleteByIdSql;   // 按主键删除的 SQL
+
+    private final Map<String, Property> byColumn; // 小写列名 -> 字段
+    private final MethodHandle constructor;       // 无参构造器，不存在时为 null
+
+    EntityPlan(TableInfo tableInfo) {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        this.constructor = findConstructor(tableInfo.type, lookup);
+        List<Property> all = new ArrayList<>();
+        for (Field field : tableInfo.type.getFields()) {
+            if (Modifier.isStatic(field.getModifiers())) {
+                continue;
+            }
+            all.add(new Property(all.size(), field, findColumn(tableInfo, field), lookup));
+        }
+        this.properties = all.toArray(new Property[0]);
+
+        Property pkProperty = null;
+        for (Property p : properties) {
+            if (p.info != null && p.info.primaryKey) {
+                pkProperty = p;
+                break;
+            }
+        }
+        if (pkProperty == null) {
+            // 未声明 @Id 时，按默认主键列名匹配
+            for (Property p : properties) {
+                if (p.column.equalsIgnoreCase(tableInfo.pk)) {
+                    pkProperty = p;
+                    break;
+                }
+            }
+        }
+        this.pk = pkProperty;
+
+        List<Property> others = new ArrayList<>();
+        List<Property> created = new ArrayList<>();
+        List<Property> updated = new ArrayList<>();
+        Map<String, Property> columns = new HashMap<>();
+        for (Property p : properties) {
+            if (p != pk) {
+                others.add(p);
+            }
+            if (p.info != null && p.info.isCreatedAt && p.clock != null) {
+                created.add(p);
+            }
+            if (p.info != null && p.info.isUpdatedAt && p.clock != null) {
+                updated.add(p);
+            }
+            columns.putIfAbsent(p.column.toLowerCase(Locale.ROOT), p);
+        }
+        this.nonPk = others.toArray(new Property[0]);
+        this.createdAt = created.toArray(new Property[0]);
+        this.updatedAt = updated.toArray(new Property[0]);
+        this.byColumn = Collections.unmodifiableMap(columns);
+
+        StringBuilder sql = new StringBuilder("UPDATE ").append(tableInfo.name).append(" SET ");
+        for (int i = 0; i < nonPk.length; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(nonPk[i].column).append(" = ?");
+        }
+        sql.append(" WHERE ").append(tableInfo.pk).append(" = ?");
+        this.updateByIdSql = sql.toString();
+        this.selectByIdSql = "SELECT * FROM " + tableInfo.name + " WHERE " + tableInfo.pk + " = ? LIMIT 1";
+        this.deleteByIdSql = "DELETE FROM " + tableInfo.name + " WHERE " + tableInfo.pk + " = ?";
+    }
+
+    /**
+     * 根据列名查找字段（忽略大小写）
+     */
+    public Property property(String column) {
+        return column == null ? null : byColumn.get(column.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * 统一主键的类型，使 1、1L 等不同类型的相同数值作为同一个键（用于实体缓存、写缓冲与批量查询）
+     */
+    static Object idKey(Object id) {
+        if (id instanceof Integer || id instanceof Long || id instanceof Short || id instanceof Byte) {
+            return ((Number) id).longValue();
+        }
+        if (id instanceof BigInteger big && big.bitLength() < 64) {
+            return big.longValue();
+        }
+        if (id instanceof BigDecimal decimal) {
+            try {
+                return decimal.longValueExact();
+            } catch (ArithmeticException e) {
+                return decimal.stripTrailingZeros();
+            }
+        }
+        return id;
+    }
+
+    /**
+     * 是否存在可用的无参构造器
+     */
+    public boolean isInstantiable() {
+        return constructor != null;
+    }
+
+    /**
+     * 通过无参构造器创建实体实例
+     */
+    public Object newInstance() {
+        if (constructor == null) {
+            throw new IllegalStateException("缺少无参构造器");
+        }
+        try {
+            return (Object) constructor.invokeExact();
+        } catch (Throwable e) {
+            throw new RuntimeException("创建实例失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 复制实体，Date 类型的字段值会被复制，其他字段值直接共享
+     */
+    public Object copy(Object entity) {
+        Object copy = newInstance();
+        for (Property property : properties) {
+            if (property.isWritable()) {
+                Object value = property.get(entity);
+                property.set(copy, value instanceof Date date ? date.clone() : value);
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * 读取实体全部字段的值，顺序与 {@link #properties} 一致
+     */
+    public Object[] values(Object entity) {
+        Object[] values = new Object[properties.length];
+        for (int i = 0; i < properties.length; i++) {
+            values[i] = properties[i].get(entity);
+        }
+        return values;
+    }
+
+    /**
+     * 自动设置时间戳，插入时同时设置创建时间和更新时间，更新时只设置更新时间
+     */
+    public void setTimestamps(Object entity, boolean isInsert) {
+        if (updatedAt.length == 0 && (!isInsert || createdAt.length == 0)) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (isInsert) {
+            for (Property p : createdAt) {
+                p.set(entity, p.clock.apply(now));
+            }
+        }
+        for (Property p : updatedAt) {
+            p.set(entity, p.clock.apply(now));
+        }
+    }
+
+    private static MethodHandle findConstructor(Class<?> type, MethodHandles.Lookup lookup) {
+        try {
+            Constructor<?> ctor = type.getDeclaredConstructor();
+            ctor.trySetAccessible();
+            return lookup.unreflectConstructor(ctor).asType(CONSTRUCTOR_TYPE);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static TableInfo.ColumnInfo findColumn(TableInfo tableInfo, Field field) {
+        for (TableInfo.ColumnInfo column : tableInfo.columns) {
+            if (column.field.equals(field)) {
+                return column;
+            }
+        }
+        return null;
+    }
+
+    /* ---------- 字段访问器 ---------- */
+    public static final class Property {
+        public final int index;                 // 在 properties 中的下标
+        public final String column;             // 列名
+        public final Field field;               // 对应的字段
+        public final Class<?> type;             // 字段类型
+        public final TableInfo.ColumnInfo info; // 列信息，未声明注解时为 null
+        private final MethodHandle getter;
+        private final MethodHandle setter;      // final 字段为 null
+        private final LongFunction<Object> clock; // 时间戳转换，不支持的类型为 null
+
+        Property(int index, Field field, TableInfo.ColumnInfo info, MethodHandles.Lookup lookup) {
+            this.index = index;
+            this.field = field;
+            this.type = field.getType();
+            this.info = info;
+            this.column = info != null ? info.name : TableInfo.camelToUnder(field.getName());
+            try {
+                field.trySetAccessible();
+                this.getter = lookup.unreflectGetter(field).asType(GETTER_TYPE);
+                this.setter = Modifier.isFinal(field.getModifiers())
+                        ? null
+                        : lookup.unreflectSetter(field).asType(SETTER_TYPE);
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException("无法访问字段: " + field, e);
+            }
+            this.clock = clockOf(type);
+        }
+
+        public boolean isWritable() {
+            return setter != null;
+        }
+
+        public Object get(Object entity) {
+            try {
+                return (Object) getter.invokeExact(entity);
+            } catch (Throwable e) {
+                throw new RuntimeException("读取字段失败: " + field.getName(), e);
+            }
+        }
+
+        public void set(Object entity, Object value) {
+            if (setter == null) {
+                throw new IllegalStateException("字段不可写: " + field.getName());
+            }
+            try {
+                setter.invokeExact(entity, value);
+            } catch (Throwable e) {
+                throw new RuntimeException("设置字段失败: " + field.getName(), e);
+            }
+        }
+
+        /* 设置字段值，支持不同的时间类型 */
+        private static LongFunction<Object> clockOf(Class<?> fieldType) {
+            if (fieldType == Date.class) {
+                return Date::new;
+            } else if (fieldType == Timestamp.class) {
+                return Timestamp::new;
+            } else if (fieldType == long.class || fieldType == Long.class) {
+                return millis -> millis;
+            } else if (fieldType == String.class) {
+                return millis -> new Date(millis).toString();
+            }
+            // 可以根据需要添加更多类型支持
+            return null;
+        }
+    }
+}
@@ -8,7 +8,6 @@ import java.lang.invoke.SerializedLambda;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 /**
@@ -17,7 +16,17 @@ import java.util.function.Function;
  */
 public class LambdaUtils {
     
-    private static final ConcurrentHashMap<String, String> COLUMN_CACHE = new ConcurrentHashMap<>();
+    /*
+     * 按 lambda 的合成类缓存列名
+     * 同一处方法引用总是对应同一个合成类，命中后只需一次查找，无需再反射调用 writeReplace；
+     * ClassValue 不会阻止合成类及其类加载器被卸载
+     */
+    private static final ClassValue<Resolved> COLUMN_CACHE = new ClassValue<>() {
+        @Override
+        protected Resolved computeValue(Class<?> lambdaClass) {
+            return new Resolved();
+        }
+    };
     
     /**
      * 函数式接口，用于获取属性
@@ -33,48 +42,91 @@ public class LambdaUtils {
      * @return 数据库列名
      */
     public static <T> String getColumnName(SFunction<T, ?> func) {
+        Resolved resolved = COLUMN_CACHE.get(func.getClass());
+        String column = resolved.column;
+        if (column == null) {
+            // 并发时可能重复解析，结果相同，无需加锁
+            column = resolve(func);
+            resolved.column = column;
+        }
+        return column;
+    }
+    
+    /* 合成类对应的列名，首次使用时解析 */
+    private static final class Resolved {
+        volatile String column;
+    }
+    
+    /**
+     * 通过 SerializedLambda 找到实体类和字段，列名取自 TableInfo，
+     * 与建表、映射使用的 @Column、@Id 规则保持一致
+     */
+    private static String resolve(SFunction<?, ?> func) {
+        SerializedLambda serializedLambda;
         try {
-            // 获取 SerializedLambda
             Method writeReplace = func.getClass().getDeclaredMethod("writeReplace");
             writeReplace.setAccessible(true);
-            SerializedLambda serializedLambda = (SerializedLambda) writeReplace.invoke(func);
-            
-            // 获取方法名
-            String methodName = serializedLambda.getImplMethodName();
-            
-            // 生成缓存键
-            String cacheKey = serializedLambda.getImplClass() + "#" + methodName;
-            
-            // 从缓存中获取
-            return COLUMN_CACHE.computeIfAbsent(cacheKey, key -> {
-                try {
-                    // 获取实现类
-                    String implClass = serializedLambda.getImplClass().replace("/", ".");
-                    Class<?> clazz = Class.forName(implClass);
-                    
-                    // 从方法名推断字段名
-                    String fieldName = getFieldNameFromMethod(methodName);
-                    
-                    // 获取字段
-                    Field field = clazz.getDeclaredField(fieldName);
-                    
-                    // 检查是否有 @Column 注解
-                    Column column = field.getAnnotation(Column.class);
-                    if (column != null && !column.name().isEmpty()) {
-                        return column.name();
-                    }
-                    
-                    // 如果没有注解或注解中没有指定名称，使用字段名转换为下划线格式
-                    return camelToUnderscore(fieldName);
-                    
-                } catch (Exception e) {
-                    throw new RuntimeException("无法解析 lambda 表达式对应的列名: " + key, e);
-                }
-            });
-            
+            serializedLambda = (SerializedLambda) writeReplace.invoke(func);
         } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
             throw new RuntimeException("无法解析 lambda 表达式", e);
         }
+        
+        String methodName = serializedLambda.getImplMethodName();
+        String fieldName = getFieldNameFromMethod(methodName);
+        ClassLoader loader = func.getClass().getClassLoader();
+        try {
+            // 优先使用实例化类型（方法引用所作用的实体类），getter 定义在父类时也能找到正确的实体
+            Class<?> entityClass = entityClass(serializedLambda, loader);
+            if (entityClass != null) {
+                String column = columnOf(entityClass, fieldName);
+                if (column != null) {
+                    return column;
+                }
+            }
+            Class<?> implClass = Class.forName(serializedLambda.getImplClass().replace('/', '.'), false, loader);
+            String column = columnOf(implClass, fieldName);
+            if (column != null) {
+                return column;
+            }
+            
+            // 非公有字段不在 TableInfo 中，按注解或命名规则推断
+            Field field = implClass.getDeclaredField(fieldName);
+            Column annotation = field.getAnnotation(Column.class);
+            if (annotation != null && !annotation.name().isEmpty()) {
+                return annotation.name();
+            }
+            return TableInfo.camelToUnder(fieldName);
+        } catch (Exception e) {
+            throw new RuntimeException("无法解析 lambda 表达式对应的列名: "
+                    + serializedLambda.getImplClass() + "#" + methodName, e);
+        }
+    }
+    
+    /* 从实例化方法类型 (Lcom/x/User;)Ljava/lang/Object; 中取出参数类型 */
+    private static Class<?> entityClass(SerializedLambda serializedLambda, ClassLoader loader) {
+        String signature = serializedLambda.getInstantiatedMethodType();
+        if (signature == null || !signature.startsWith("(L")) {
+            return null;
+        }
+        int end = signature.indexOf(';');
+        if (end < 0) {
+            return null;
+        }
+        try {
+            return Class.forName(signature.substring(2, end).replace('/', '.'), false, loader);
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+    
+    /* 在实体的访问计划中按字段名查找列名 */
+    private static String columnOf(Class<?> entityClass, String fieldName) {
+        for (EntityPlan.Property property : TableInfo.of(entityClass).plan.properties) {
+            if (property.field.getName().equals(fieldName)) {
+                return property.column;
+            }
+        }
+        return null;
     }
     
     /**
@@ -91,27 +143,4 @@ public class LambdaUtils {
             return methodName;
         }
     }
-    
-    /**
-     * 将驼峰命名转换为下划线命名
-     */
-    private static String camelToUnderscore(String camelCase) {
-        if (camelCase == null || camelCase.isEmpty()) {
-            return camelCase;
-        }
-        
-        StringBuilder result = new StringBuilder();
-        result.append(Character.toLowerCase(camelCase.charAt(0)));
-        
-        for (int i = 1; i < camelCase.length(); i++) {
-            char c = camelCase.charAt(i);
-            if (Character.isUpperCase(c)) {
-                result.append('_').append(Character.toLowerCase(c));
-            } else {
-                result.append(c);
-            }
-        }
-        
-        return result.toString();
-    }
 }
\ No newline at end of file
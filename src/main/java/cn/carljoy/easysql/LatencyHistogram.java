@@ -0,0 +1,182 @@
+package cn.carljoy.easysql;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按 表 + 语句类型 统计耗时分布的监听器
+ * <p>
+ * 以微秒为单位按对数分桶（每个 2 的幂再细分 8 个桶），百分位的相对误差不超过 12.5%，
+ * 记录一次只需几次原子操作，不会随调用次数增长占用内存
+ */
+public class LatencyHistogram implements QueryListener {
+    private final Map<Key, Histogram> histograms = new ConcurrentHashMap<>();
+
+    @Override
+    public void onQuery(QueryEvent event) {
+        histograms.computeIfAbsent(new Key(event.getTable(), event.getOperation()), key -> new Histogram())
+                .record(event.getTotalNanos() / 1000, event.isSuccess());
+    }
+
+    /**
+     * 获取指定表和语句类型的统计，没有记录时返回 null
+     */
+    public Stats getStats(String table, QueryEvent.Operation operation) {
+        Histogram histogram = histograms.get(new Key(table, operation));
+        return histogram == null ? null : histogram.stats();
+    }
+
+    /**
+     * 获取全部统计，键为 "表名 语句类型"
+     */
+    public Map<String, Stats> snapshot() {
+        Map<String, Stats> result = new TreeMap<>();
+        for (Map.Entry<Key, Histogram> entry : histograms.entrySet()) {
+            result.put(entry.getKey().table() + " " + entry.getKey().operation(), entry.getValue().stats());
+        }
+        return result;
+    }
+
+    /**
+     * 清空全部统计
+     */
+    public void reset() {
+        histograms.clear();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("LatencyHistogram{");
+        for (Map.Entry<String, Stats> entry : snapshot().entrySet()) {
+            sb.append("\n  ").append(entry.getKey()).append(": ").append(entry.getValue());
+        }
+        return sb.append(snapshot().isEmpty() ? "}" : "\n}").toString();
+    }
+
+    private record Key(String table, QueryEvent.Operation operation) {
+    }
+
+    /**
+     * 某一时刻的统计结果，耗时单位为毫秒
+     */
+    public static final class Stats {
+        private final long count;
+        private final long errors;
+        private final double meanMillis;
+        private final double maxMillis;
+        private final long[] buckets;
+
+        private Stats(long count, long errors, double meanMillis, double maxMillis, long[] buckets) {
+            this.count = count;
+            this.errors = errors;
+            this.meanMillis = meanMillis;
+            this.maxMillis = maxMillis;
+            this.buckets = buckets;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public double getMeanMillis() {
+            return meanMillis;
+        }
+
+        public double getMaxMillis() {
+            return maxMillis;
+        }
+
+        /**
+         * 获取百分位耗时（毫秒），返回所在桶的上界
+         *
+         * @param percentile 0 ~ 100，如 99.9
+         */
+        public double getPercentileMillis(double percentile) {
+            long total = 0;
+            for (long bucket : buckets) {
+                total += bucket;
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long target = (long) Math.ceil(total * Math.min(100, Math.max(0, percentile)) / 100.0);
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= Math.max(1, target)) {
+                    return Math.min(upperBound(i) / 1000.0, maxMillis);
+                }
+            }
+            return maxMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("count=%d errors=%d mean=%.3fms p50=%.3fms p90=%.3fms p99=%.3fms p999=%.3fms max=%.3fms",
+                    count, errors, meanMillis, getPercentileMillis(50), getPercentileMillis(90),
+                    getPercentileMillis(99), getPercentileMillis(99.9), maxMillis);
+        }
+    }
+
+    /* ---------- 分桶 ---------- */
+
+    // 小于 16 微秒时每微秒一个桶，之后每个 2 的幂细分为 8 个桶
+    private static final int LINEAR = 16;
+    private static final int SUB_BITS = 3;
+    private static final int BUCKETS = LINEAR + (63 - 4) * (1 << SUB_BITS);
+
+    static int bucketOf(long micros) {
+        if (micros < LINEAR) {
+            return (int) Math.max(0, micros);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int sub = (int) (micros >>> (exponent - SUB_BITS)) & ((1 << SUB_BITS) - 1);
+        return LINEAR + (exponent - 4) * (1 << SUB_BITS) + sub;
+    }
+
+    /* 桶内最大的值（微秒） */
+    static long upperBound(int bucket) {
+        if (bucket < LINEAR) {
+            return bucket;
+        }
+        int exponent = (bucket - LINEAR) / (1 << SUB_BITS) + 4;
+        int sub = (bucket - LINEAR) % (1 << SUB_BITS);
+        return (((long) (1 << SUB_BITS) + sub + 1) << (exponent - SUB_BITS)) - 1;
+    }
+
+    private static final class Histogram {
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder totalMicros = new LongAdder();
+        private final AtomicLong maxMicros = new AtomicLong();
+
+        void record(long micros, boolean success) {
+            buckets.incrementAndGet(bucketOf(micros));
+            count.increment();
+            totalMicros.add(micros);
+            maxMicros.accumulateAndGet(micros, Math::max);
+            if (!success) {
+                errors.increment();
+            }
+        }
+
+        Stats stats() {
+            long[] copy = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                copy[i] = buckets.get(i);
+            }
+            long n = count.sum();
+            double mean = n == 0 ? 0 : totalMicros.sum() / 1000.0 / n;
+            return new Stats(n, errors.sum(), mean, maxMicros.get() / 1000.0, copy);
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package cn.carljoy.easysql;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Modifier;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * 行映射字节码生成器
+ * 为每个映射计划生成一个隐藏类，直接调用无参构造器、按列下标使用对应的基本类型 getter 读取并写入字段，
+ * 没有专用 getter 的字段读取原始值后通过 {@link RowMapper#convertValue} 转换
+ * <p>
+ * 隐藏类定义在实体类所在的包中，生成的类实现 {@code Function<Object, Object>}，入参为 ResultSet
+ */
+final class MapperGenerator implements Opcodes {
+    private static final String RESULT_SET = Type.getInternalName(ResultSet.class);
+    private static final String OPERATOR = Type.getInternalName(UnaryOperator.class);
+    private static final String OPERATORS_DESC = "[" + Type.getDescriptor(UnaryOperator.class);
+
+    private MapperGenerator() {
+    }
+
+    /**
+     * 生成映射器，实体或字段不可直接访问时抛出异常
+     *
+     * @param type       实体类
+     * @param columns    结果集列下标（从 1 开始）
+     * @param properties 与列下标一一对应的字段
+     */
+    @SuppressWarnings("unchecked")
+    static Function<Object, Object> generate(Class<?> type, int[] columns, EntityPlan.Property[] properties) throws Throwable {
+        if (Modifier.isPrivate(type.getModifiers())
+                || Modifier.isAbstract(type.getModifiers())
+                || Modifier.isPrivate(type.getDeclaredConstructor().getModifiers())) {
+            throw new IllegalStateException("实体类无法直接实例化: " + type.getName());
+        }
+        for (EntityPlan.Property property : properties) {
+            if (!accessible(property.field.getDeclaringClass(), type) || !accessible(property.type, type)) {
+                throw new IllegalStateException("字段无法直接访问: " + property.field);
+            }
+        }
+
+        UnaryOperator<Object>[] converters = new UnaryOperator[properties.length];
+        for (int i = 0; i < properties.length; i++) {
+            Class<?> fieldType = properties[i].type;
+            converters[i] = value -> RowMapper.convertValue(value, fieldType);
+        }
+
+        MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+        MethodHandles.Lookup mapper = lookup.defineHiddenClass(generateBytes(type, columns, properties), true);
+        return (Function<Object, Object>) mapper
+                .findConstructor(mapper.lookupClass(), MethodType.methodType(void.class, UnaryOperator[].class))
+                .invoke(converters);
+    }
+
+    private static byte[] generateBytes(Class<?> type, int[] columns, EntityPlan.Property[] properties) {
+        String entity = Type.getInternalName(type);
+        String name = entity + "$$EasySQLMapper";
+
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS) {
+            @Override
+            protected String getCommonSuperClass(String type1, String type2) {
+                return "java/lang/Object";
+            }
+        };
+        cw.visit(V17, ACC_FINAL | ACC_SUPER | ACC_SYNTHETIC, name, null,
+                "java/lang/Object", new String[]{Type.getInternalName(Function.class)});
+        cw.visitField(ACC_PRIVATE | ACC_FINAL, "converters", OPERATORS_DESC, null, null).visitEnd();
+
+        // 构造器：保存类型转换器
+        MethodVisitor init = cw.visitMethod(ACC_PUBLIC, "<init>", "(" + OPERATORS_DESC + ")V", null, null);
+        init.visitCode();
+        init.visitVarInsn(ALOAD, 0);
+        init.visitMethodInsn(INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+        init.visitVarInsn(ALOAD, 0);
+        init.visitVarInsn(ALOAD, 1);
+        init.visitFieldInsn(PUTFIELD, name, "converters", OPERATORS_DESC);
+        init.visitInsn(RETURN);
+        init.visitMaxs(0, 0);
+        init.visitEnd();
+
+        // apply(ResultSet)：局部变量 1=参数 2=ResultSet 3=实体 4/5=当前列的值
+        MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "apply", "(Ljava/lang/Object;)Ljava/lang/Object;", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(ALOAD, 1);
+        mv.visitTypeInsn(CHECKCAST, RESULT_SET);
+        mv.visitVarInsn(ASTORE, 2);
+        mv.visitTypeInsn(NEW, entity);
+        mv.visitInsn(DUP);
+        mv.visitMethodInsn(INVOKESPECIAL, entity, "<init>", "()V", false);
+        mv.visitVarInsn(ASTORE, 3);
+
+        for (int i = 0; i < properties.length; i++) {
+            readColumn(mv, name, i, columns[i], properties[i]);
+        }
+
+        mv.visitVarInsn(ALOAD, 3);
+        mv.visitInsn(ARETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    private static void readColumn(MethodVisitor mv, String name, int index, int column, EntityPlan.Property property) {
+        Class<?> fieldType = property.type;
+        String owner = Type.getInternalName(property.field.getDeclaringClass());
+        String fieldName = property.field.getName();
+        String fieldDesc = Type.getDescriptor(fieldType);
+        Label skip = new Label();
+
+        Primitive primitive = Primitive.of(fieldType);
+        if (primitive != null) {
+            // 基本类型及其包装类：getXxx(int) + wasNull()，与 RowMapper.readerFor 的读取与范围检查一致
+            mv.visitVarInsn(ALOAD, 2);
+            mv.visitLdcInsn(column);
+            mv.visitMethodInsn(INVOKEINTERFACE, RESULT_SET, primitive.getter, "(I)" + primitive.readType.getDescriptor(), true);
+            mv.visitVarInsn(primitive.readType.getOpcode(ISTORE), 4);
+            mv.visitVarInsn(ALOAD, 2);
+            mv.visitMethodInsn(INVOKEINTERFACE, RESULT_SET, "wasNull", "()Z", true);
+            mv.visitJumpInsn(IFNE, skip);
+            mv.visitVarInsn(ALOAD, 3);
+            mv.visitVarInsn(primitive.readType.getOpcode(ILOAD), 4);
+            if (primitive.readType != primitive.type) {
+                // 以 long 读取的整数列，超出字段范围时抛出 ArithmeticException 而不是截断
+                mv.visitMethodInsn(INVOKESTATIC, "java/lang/Math", "toIntExact", "(J)I", false);
+                if (primitive != Primitive.INT) {
+                    Label inRange = new Label();
+                    mv.visitInsn(DUP);
+                    mv.visitInsn(DUP);
+                    mv.visitInsn(primitive == Primitive.SHORT ? I2S : I2B);
+                    mv.visitJumpInsn(IF_ICMPEQ, inRange);
+                    mv.visitTypeInsn(NEW, "java/lang/ArithmeticException");
+                    mv.visitInsn(DUP);
+                    mv.visitLdcInsn(primitive.overflow);
+                    mv.visitMethodInsn(INVOKESPECIAL, "java/lang/ArithmeticException", "<init>", "(Ljava/lang/String;)V", false);
+                    mv.visitInsn(ATHROW);
+                    mv.visitLabel(inRange);
+                }
+            }
+            if (!fieldType.isPrimitive()) {
+                String box = Type.getInternalName(fieldType);
+                mv.visitMethodInsn(INVOKESTATIC, box, "valueOf", "(" + primitive.desc + ")" + fieldDesc, false);
+            }
+            mv.visitFieldInsn(PUTFIELD, owner, fieldName, fieldDesc);
+            mv.visitLabel(skip);
+            return;
+        }
+
+        // 引用类型：读取后判空
+        mv.visitVarInsn(ALOAD, 2);
+        mv.visitLdcInsn(column);
+        if (fieldType == String.class) {
+            mv.visitMethodInsn(INVOKEINTERFACE, RESULT_SET, "getString", "(I)Ljava/lang/String;", true);
+        } else if (fieldType == Timestamp.class || fieldType == LocalDateTime.class) {
+            mv.visitMethodInsn(INVOKEINTERFACE, RESULT_SET, "getTimestamp", "(I)Ljava/sql/Timestamp;", true);
+        } else {
+            mv.visitMethodInsn(INVOKEINTERFACE, RESULT_SET, "getObject", "(I)Ljava/lang/Object;", true);
+        }
+        mv.visitVarInsn(ASTORE, 4);
+        mv.visitVarInsn(ALOAD, 4);
+        mv.visitJumpInsn(IFNULL, skip);
+        mv.visitVarInsn(ALOAD, 3);
+        mv.visitVarInsn(ALOAD, 4);
+        if (fieldType == LocalDateTime.class) {
+            mv.visitTypeInsn(CHECKCAST, "java/sql/Timestamp");
+            mv.visitMethodInsn(INVOKEVIRTUAL, "java/sql/Timestamp", "toLocalDateTime", "()Ljava/time/LocalDateTime;", false);
+        } else if (fieldType != String.class && fieldType != Timestamp.class) {
+            // converters[index].apply(value)
+            mv.visitVarInsn(ALOAD, 0);
+            mv.visitFieldInsn(GETFIELD, name, "converters", OPERATORS_DESC);
+            mv.visitLdcInsn(index);
+            mv.visitInsn(AALOAD);
+            mv.visitInsn(SWAP);
+            mv.visitMethodInsn(INVOKEINTERFACE, OPERATOR, "apply", "(Ljava/lang/Object;)Ljava/lang/Object;", true);
+            mv.visitTypeInsn(CHECKCAST, Type.getInternalName(fieldType));
+        } else {
+            mv.visitTypeInsn(CHECKCAST, Type.getInternalName(fieldType));
+        }
+        mv.visitFieldInsn(PUTFIELD, owner, fieldName, fieldDesc);
+        mv.visitLabel(skip);
+    }
+
+    /* 判断类型能否被实体所在包中的类直接访问 */
+    private static boolean accessible(Class<?> target, Class<?> from) {
+        while (target.isArray()) {
+            target = target.getComponentType();
+        }
+        if (target.isPrimitive()) {
+            return true;
+        }
+        if (target.getClassLoader() == from.getClassLoader()
+                && Objects.equals(target.getPackageName(), from.getPackageName())) {
+            return !Modifier.isPrivate(target.getModifiers());
+        }
+        if (!Modifier.isPublic(target.getModifiers())) {
+            return false;
+        }
+        return target.getEnclosingClass() == null || accessible(target.getEnclosingClass(), from);
+    }
+
+    /* 基本类型与对应的 ResultSet getter，int / short / byte 以 getLong 读取后检查范围 */
+    private enum Primitive {
+        INT("getLong", Type.INT_TYPE, Type.LONG_TYPE, null),
+        LONG("getLong", Type.LONG_TYPE, Type.LONG_TYPE, null),
+        DOUBLE("getDouble", Type.DOUBLE_TYPE, Type.DOUBLE_TYPE, null),
+        FLOAT("getFloat", Type.FLOAT_TYPE, Type.FLOAT_TYPE, null),
+        BOOLEAN("getBoolean", Type.BOOLEAN_TYPE, Type.BOOLEAN_TYPE, null),
+        SHORT("getLong", Type.SHORT_TYPE, Type.LONG_TYPE, "short overflow"),
+        BYTE("getLong", Type.BYTE_TYPE, Type.LONG_TYPE, "byte overflow");
+
+        final String getter;
+        final Type type;     // 字段类型
+        final Type readType; // getter 返回的类型
+        final String desc;
+        final String overflow; // 超出范围时的异常信息
+
+        Primitive(String getter, Type type, Type readType, String overflow) {
+            this.getter = getter;
+            this.type = type;
+            this.readType = readType;
+            this.desc = type.getDescriptor();
+            this.overflow = overflow;
+        }
+
+        static Primitive of(Class<?> fieldType) {
+            if (fieldType == int.class || fieldType == Integer.class) {
+                return INT;
+            } else if (fieldType == long.class || fieldType == Long.class) {
+                return LONG;
+            } else if (fieldType == double.class || fieldType == Double.class) {
+                return DOUBLE;
+            } else if (fieldType == float.class || fieldType == Float.class) {
+                return FLOAT;
+            } else if (fieldType == boolean.class || fieldType == Boolean.class) {
+                return BOOLEAN;
+            } else if (fieldType == short.class || fieldType == Short.class) {
+                return SHORT;
+            } else if (fieldType == byte.class || fieldType == Byte.class) {
+                return BYTE;
+            }
+            return null;
+        }
+    }
+}
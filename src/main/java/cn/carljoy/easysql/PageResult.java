@@ -1,5 +1,6 @@
 package cn.carljoy.easysql;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 
 import java.util.List;
@@ -36,13 +37,37 @@ public class PageResult<T> {
      *  获取总页数
      */
     private final int totalPages;
+    /**
+     * -- GETTER --
+     *  总记录数是否精确，使用缓存的总数或不统计总数时为 false
+     */
+    private final boolean totalExact;
+    @Getter(AccessLevel.NONE)
+    private final boolean more;
     
     public PageResult(List<T> records, long total, int pageNumber, int pageSize) {
+        this(records, total, pageNumber, pageSize, true);
+    }
+
+    /**
+     * @param totalExact 总记录数是否精确
+     */
+    public PageResult(List<T> records, long total, int pageNumber, int pageSize, boolean totalExact) {
+        this(records, total, pageNumber, pageSize, totalExact, (long) pageNumber * pageSize < total);
+    }
+
+    /**
+     * @param totalExact 总记录数是否精确
+     * @param hasMore    当前页之后是否还有数据
+     */
+    public PageResult(List<T> records, long total, int pageNumber, int pageSize, boolean totalExact, boolean hasMore) {
         this.records = records;
         this.total = total;
         this.pageNumber = pageNumber;
         this.pageSize = pageSize;
         this.totalPages = (int) Math.ceil((double) total / pageSize);
+        this.totalExact = totalExact;
+        this.more = hasMore;
     }
 
     /**
@@ -59,6 +84,13 @@ public class PageResult<T> {
         return pageNumber < totalPages;
     }
     
+    /**
+     * 当前页之后是否还有数据，不依赖总页数，总记录数不精确时使用
+     */
+    public boolean hasMore() {
+        return more;
+    }
+    
     /**
      * 是否为第一页
      */
@@ -81,6 +113,8 @@ public class PageResult<T> {
                 ", pageNumber=" + pageNumber +
                 ", pageSize=" + pageSize +
                 ", totalPages=" + totalPages +
+                ", totalExact=" + totalExact +
+                ", hasMore=" + more +
                 '}';
     }
 }
\ No newline at end of file
@@ -0,0 +1,160 @@
+package cn.carljoy.easysql;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * 查询结果缓存，基于 Caffeine
+ * <p>
+ * 以编译后的 SQL（按查询结构规范化）、参数和表的版本号作为键。
+ * 通过 BaseDao 的每次写操作都会递增表的版本号，旧版本的结果不再被命中，
+ * 无需扫描缓存，随后按过期时间或容量淘汰。绕过 BaseDao 直接修改表时需调用 {@link #invalidateTable(String)}
+ * <p>
+ * 容量按估算的内存占用（字节）限制，过期时间可通过 {@link QueryWrapper#cacheTtl(Duration)} 按查询指定。
+ * 需要在项目中引入 com.github.ben-manes.caffeine:caffeine
+ */
+public final class QueryCache {
+    private final Cache<Key, Entry> cache;
+    private final Duration defaultTtl;
+
+    /**
+     * @param maximumBytes 缓存结果的估算内存上限
+     * @param defaultTtl   默认过期时间，为 null 时只按版本号和容量淘汰
+     */
+    QueryCache(long maximumBytes, Duration defaultTtl) {
+        this.defaultTtl = defaultTtl;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maximumBytes)
+                .weigher((Key key, Entry entry) -> entry.weight())
+                .expireAfter(new Expiry<Key, Entry>() {
+                    @Override
+                    public long expireAfterCreate(Key key, Entry entry, long currentTime) {
+                        return entry.ttlNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Key key, Entry entry, long currentTime, long currentDuration) {
+                        return entry.ttlNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(Key key, Entry entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * 结果加载器
+     */
+    @FunctionalInterface
+    interface Loader<R> {
+        R load() throws SQLException;
+    }
+
+    /**
+     * 读取缓存，未命中时加载并缓存
+     *
+     * @param ttl    本次查询的过期时间，为 null 时使用默认值，为 0 时不使用缓存
+     * @param weight 根据结果估算内存占用
+     */
+    @SuppressWarnings("unchecked")
+    <R> R get(String table, String sql, Object[] params, Duration ttl,
+              Loader<R> loader, ToLongFunction<R> weight) throws SQLException {
+        Duration effective = ttl != null ? ttl : defaultTtl;
+        if (effective != null && (effective.isZero() || effective.isNegative())) {
+            return loader.load();
+        }
+        // 版本号必须在查询之前读取，写操作提交后再递增，保证并发写入时不会缓存旧结果
+        Key key = new Key(sql, Arrays.asList(params), TableVersions.get(table));
+        try {
+            Entry entry = cache.get(key, k -> {
+                try {
+                    R value = loader.load();
+                    long ttlNanos = effective == null ? Long.MAX_VALUE : effective.toNanos();
+                    return new Entry(value, ttlNanos, (int) Math.min(Integer.MAX_VALUE, weight.applyAsLong(value)));
+                } catch (SQLException e) {
+                    throw new LoadException(e);
+                }
+            });
+            return (R) entry.value();
+        } catch (LoadException e) {
+            throw (SQLException) e.getCause();
+        }
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /* 命中次数 */
+    public long getHits() {
+        return cache.stats().hitCount();
+    }
+
+    /* 未命中次数 */
+    public long getMisses() {
+        return cache.stats().missCount();
+    }
+
+    /* 因超出容量或过期被淘汰的数量 */
+    public long getEvictions() {
+        return cache.stats().evictionCount();
+    }
+
+    /* 命中率，没有请求时为 1.0 */
+    public double getHitRate() {
+        return cache.stats().hitRate();
+    }
+
+    /* 当前缓存的结果数量（估计值） */
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    @Override
+    public String toString() {
+        CacheStats stats = cache.stats();
+        return "QueryCache{" +
+                "size=" + size() +
+                ", hits=" + stats.hitCount() +
+                ", misses=" + stats.missCount() +
+                ", evictions=" + stats.evictionCount() +
+                '}';
+    }
+
+    /**
+     * 使指定表的全部缓存结果失效，用于绕过 BaseDao 修改数据后
+     */
+    public static void invalidateTable(String table) {
+        TableVersions.bump(table);
+    }
+
+    /* 缓存键：SQL、参数、表版本号 */
+    private record Key(String sql, List<Object> params, long version) {
+    }
+
+    /* 缓存值及其过期时间、估算大小 */
+    private record Entry(Object value, long ttlNanos, int weight) {
+    }
+
+    /* 在 Caffeine 的加载函数中传递 SQLException */
+    private static final class LoadException extends RuntimeException {
+        LoadException(SQLException cause) {
+            super(cause);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package cn.carljoy.easysql;
+
+import lombok.Getter;
+
+import java.util.Locale;
+
+/**
+ * 一条 SQL 语句的执行信息
+ */
+public final class QueryEvent {
+    /**
+     * 语句类型，按 SQL 的第一个关键字判断
+     */
+    public enum Operation {
+        SELECT, INSERT, UPDATE, DELETE, MERGE, OTHER;
+
+        static Operation of(String sql) {
+            int start = 0;
+            while (start < sql.length() && Character.isWhitespace(sql.charAt(start))) {
+                start++;
+            }
+            int end = start;
+            while (end < sql.length() && Character.isLetter(sql.charAt(end))) {
+                end++;
+            }
+            switch (sql.substring(start, end).toUpperCase(Locale.ROOT)) {
+                case "SELECT":
+                    return SELECT;
+                case "INSERT":
+                    return INSERT;
+                case "UPDATE":
+                    return UPDATE;
+                case "DELETE":
+                    return DELETE;
+                case "MERGE":
+                    return MERGE;
+                default:
+                    return OTHER;
+            }
+        }
+    }
+
+    /**
+     * -- GETTER --
+     *  获取表名
+     */
+    @Getter
+    private final String table;
+    /**
+     * -- GETTER --
+     *  获取语句类型
+     */
+    @Getter
+    private final Operation operation;
+    /**
+     * -- GETTER --
+     *  获取 SQL 文本，参数均为占位符，相同结构的查询文本相同
+     */
+    @Getter
+    private final String sql;
+    /**
+     * -- GETTER --
+     *  获取参数个数（批处理时为单组参数的个数）
+     */
+    @Getter
+    private final int paramCount;
+    /**
+     * -- GETTER --
+     *  获取返回或影响的行数
+     */
+    @Getter
+    private final long rows;
+    /**
+     * -- GETTER --
+     *  获取从连接池获取连接的耗时（纳秒）
+     */
+    @Getter
+    private final long acquireNanos;
+    /**
+     * -- GETTER --
+     *  获取预处理并执行语句的耗时（纳秒）
+     */
+    @Getter
+    private final long executeNanos;
+    /**
+     * -- GETTER --
+     *  获取读取结果集并映射的耗时（纳秒），流式查询包含调用方处理每行的时间
+     */
+    @Getter
+    private final long mappingNanos;
+    /**
+     * -- GETTER --
+     *  获取执行失败的异常，成功时为 null
+     */
+    @Getter
+    private final Throwable error;
+
+    QueryEvent(String table, String sql, int paramCount, long rows,
+               long acquireNanos, long executeNanos, long mappingNanos, Throwable error) {
+        this.table = table;
+        this.operation = Operation.of(sql);
+        this.sql = sql;
+        this.paramCount = paramCount;
+        this.rows = rows;
+        this.acquireNanos = acquireNanos;
+        this.executeNanos = executeNanos;
+        this.mappingNanos = mappingNanos;
+        this.error = error;
+    }
+
+    /**
+     * 获取总耗时（纳秒）
+     */
+    public long getTotalNanos() {
+        return acquireNanos + executeNanos + mappingNanos;
+    }
+
+    /**
+     * 是否执行成功
+     */
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    @Override
+    public String toString() {
+        return "QueryEvent{" +
+                "table='" + table + '\'' +
+                ", operation=" + operation +
+                ", rows=" + rows +
+                ", acquireMillis=" + acquireNanos / 1_000_000.0 +
+                ", executeMillis=" + executeNanos / 1_000_000.0 +
+                ", mappingMillis=" + mappingNanos / 1_000_000.0 +
+                ", sql='" + sql + '\'' +
+                (error != null ? ", error=" + error : "") +
+                '}';
+    }
+}
@@ -0,0 +1,15 @@
+package cn.carljoy.easysql;
+
+/**
+ * SQL 执行监听器
+ * 可注册在单个 DAO 上（{@link BaseDao#addListener(QueryListener)}）或全局（{@link BaseDao#addGlobalListener(QueryListener)}），
+ * 每条语句执行结束后在执行线程上回调，实现应尽量轻量且不抛出异常。没有注册任何监听器时不会计时
+ */
+@FunctionalInterface
+public interface QueryListener {
+
+    /**
+     * 一条语句执行结束（成功或失败）
+     */
+    void onQuery(QueryEvent event);
+}
@@ -3,11 +3,21 @@ package cn.carljoy.easysql;
 import cc.carm.lib.easysql.api.builder.TableQueryBuilder;
 import lombok.Getter;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class QueryWrapper<T> {
 
+    // 按查询结构缓存的 SQL 文本
+    private static final int MAX_CACHED_SHAPES = 1024;
+    private static final ConcurrentHashMap<QueryShape, String> SQL_CACHE = new ConcurrentHashMap<>();
+    // IN 列表每块的最大元素数，超出时拆分为多个 IN，以 OR（NOT IN 为 AND）连接
+    static final int IN_CHUNK = 512;
+
     private final TableInfo table;
 
     @Getter
@@ -41,6 +51,8 @@ public class QueryWrapper<T> {
     private boolean orderAsc = true;
     private Integer limit;
     private Integer offset;
+    private Duration cacheTtl; // 查询缓存的过期时间，为 null 时使用缓存的默认值
+    private String[] selectColumns; // 查询的列，为 null 时查询全部列
 
     public QueryWrapper(Class<T> clazz) {
         this.table = TableInfo.of(clazz);
@@ -228,22 +240,62 @@ public class QueryWrapper<T> {
         return this.limit(start, end);
     }
 
+    /* 从 start 开始取 rows 条，用于多取一条判断是否有下一页 */
+    QueryWrapper<T> range(int start, int rows) {
+        return this.limit(start, start + rows - 1);
+    }
+
     private QueryWrapper<T> limit(int start, int end) { // 保留原内部方法
         this.offset = start;
         this.limit = end;
         return this;
     }
 
+    /* ---------- 查询列 ---------- */
+
+    /**
+     * 只查询指定的列，未指定的字段在结果中保持默认值（注意不要以 ignoreNulls = false 更新这样的实体）
+     * 也可以是带别名的表达式，如 "COUNT(1) AS total"，用于 {@link BaseDao#selectListAs(QueryWrapper, Class)}
+     */
+    public QueryWrapper<T> select(String... columns) {
+        this.selectColumns = columns == null || columns.length == 0 ? null : columns.clone();
+        return this;
+    }
+
+    @SafeVarargs
+    public final QueryWrapper<T> select(LambdaUtils.SFunction<T, ?>... columns) {
+        String[] names = new String[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            names[i] = LambdaUtils.getColumnName(columns[i]);
+        }
+        return select(names);
+    }
+
+    /* ---------- 查询缓存 ---------- */
+
+    /**
+     * 指定本查询在查询缓存中的过期时间，只在 DAO 开启查询缓存时生效
+     * @param ttl 过期时间，为 0 时不使用缓存
+     */
+    public QueryWrapper<T> cacheTtl(Duration ttl) {
+        this.cacheTtl = ttl;
+        return this;
+    }
+
+    /**
+     * 本查询不使用查询缓存
+     */
+    public QueryWrapper<T> noCache() {
+        return cacheTtl(Duration.ZERO);
+    }
+
     /* ---------- 内部方法，供DAO使用 ---------- */
     public void applyConditions(TableQueryBuilder q) {
         for (Condition cond : conditions) {
             if (cond.hasValue) {
                 if ("IN".equals(cond.operator) || "NOT IN".equals(cond.operator)) {
-                    // 处理 IN 和 NOT IN 操作
-                    Object[] values = (Object[]) cond.value;
-                    for (Object val : values) {
-                        q.addCondition(cond.column, cond.operator, val);
-                    }
+                    // 处理 IN 和 NOT IN 操作，整个列表作为一个条件
+                    applyIn(q, cond);
                 } else if ("BETWEEN".equals(cond.operator)) {
                     // 处理 BETWEEN 操作
                     Object[] range = (Object[]) cond.value;
@@ -260,6 +312,39 @@ public class QueryWrapper<T> {
         }
     }
 
+    /*
+     * EasySQL 的条件构造器每个条件只能绑定一个参数，多个值时展开为按档位补齐的参数条件：
+     * NOT IN 为 col <> ? AND col <> ? ...，IN 为 NOT (1 = 1 AND col <> ? AND ... AND 1 = 1)。
+     * 条件之间由构造器以 AND 连接，补齐的位置重复最后一个值，同一档位的列表生成相同的 SQL
+     */
+    private static void applyIn(TableQueryBuilder q, Condition cond) {
+        Object[] values = (Object[]) cond.value;
+        if (values.length == 0) {
+            return;
+        }
+        boolean in = "IN".equals(cond.operator);
+        if (values.length == 1) {
+            q.addCondition(cond.column, in ? "=" : "<>", values[0]);
+            return;
+        }
+        if (in) {
+            q.addCondition("NOT (1 = 1");
+        }
+        int arity = inArity(values.length);
+        for (int i = 0; i < arity; i++) {
+            q.addCondition(cond.column, "<>", values[Math.min(i, values.length - 1)]);
+        }
+        if (in) {
+            q.addCondition("1 = 1)");
+        }
+    }
+
+    public void applyColumns(TableQueryBuilder q) {
+        if (selectColumns != null) {
+            q.selectColumns(selectColumns);
+        }
+    }
+
     public void applyOrdering(TableQueryBuilder q) {
         if (orderColumn != null) {
             q.orderBy(orderColumn, orderAsc);
@@ -276,6 +361,21 @@ public class QueryWrapper<T> {
         return table;
     }
 
+    /* 排序字段，未指定时为 null */
+    String getOrderColumn() {
+        return orderColumn;
+    }
+
+    /* 查询的列，未指定时为 null */
+    String[] getSelectColumns() {
+        return selectColumns;
+    }
+
+    /* 是否升序 */
+    boolean isOrderAsc() {
+        return orderAsc;
+    }
+
     /**
      * 检查是否有查询条件
      * @return 如果有条件返回 true，否则返回 false
@@ -284,6 +384,111 @@ public class QueryWrapper<T> {
         return !conditions.isEmpty();
     }
 
+    /**
+     * 编译为不可变的查询
+     * SQL 文本按查询结构（表、查询列、条件列与操作符、IN 参数档位、排序、是否分页）缓存，只有参数随每次调用变化
+     * @return 编译后的查询
+     */
+    public CompiledQuery<T> compile() {
+        return compile(false, selectColumns);
+    }
+
+    /* 以指定的查询列编译，不修改当前的查询列 */
+    CompiledQuery<T> compile(String... columns) {
+        return compile(false, columns);
+    }
+
+    /**
+     * 编译为统计数量的查询，忽略排序与分页
+     * @return 编译后的查询
+     */
+    public CompiledQuery<T> compileCount() {
+        return compile(true, null);
+    }
+
+    private CompiledQuery<T> compile(boolean count, String[] columns) {
+        QueryShape shape = shape(count, columns);
+        String sql = SQL_CACHE.get(shape);
+        if (sql == null) {
+            if (SQL_CACHE.size() >= MAX_CACHED_SHAPES) {
+                SQL_CACHE.clear();
+            }
+            List<Object> ignored = new ArrayList<>();
+            sql = count ? buildCountSql(ignored) : buildSelectSql(columns, ignored);
+            SQL_CACHE.putIfAbsent(shape, sql);
+        }
+
+        // 只收集参数，不再拼接 SQL
+        List<Object> params = new ArrayList<>();
+        appendConditions(null, params);
+        if (!count) {
+            appendPaging(null, params);
+        }
+        return new CompiledQuery<>(entityClass, sql, params.toArray(), cacheTtl);
+    }
+
+    /* 查询结构，决定生成的 SQL 文本 */
+    private QueryShape shape(boolean count, String[] columns) {
+        Object[] parts = new Object[7 + conditions.size() * 3];
+        int i = 0;
+        parts[i++] = table.name;
+        parts[i++] = count;
+        parts[i++] = count || columns == null ? null : Arrays.asList(columns);
+        parts[i++] = count ? null : orderColumn;
+        parts[i++] = !count && orderAsc;
+        parts[i++] = !count && limit != null;
+        parts[i++] = !count && offset != null;
+        for (Condition cond : conditions) {
+            parts[i++] = cond.column;
+            parts[i++] = cond.operator;
+            parts[i++] = cond.value instanceof Object[] values
+                    ? ("IN".equals(cond.operator) || "NOT IN".equals(cond.operator) ? inArity(values.length) : values.length)
+                    : 0;
+        }
+        return new QueryShape(Arrays.asList(parts));
+    }
+
+    private record QueryShape(List<Object> parts) {
+    }
+
+    /**
+     * 构建完整的 SELECT 语句，包含条件、排序与分页（分页参数同样使用占位符）
+     * @param params 参数列表，用于收集查询参数
+     * @return SELECT 语句
+     */
+    public String buildSelectSql(List<Object> params) {
+        return buildSelectSql(selectColumns, params);
+    }
+
+    private String buildSelectSql(String[] columns, List<Object> params) {
+        StringBuilder sql = new StringBuilder("SELECT ")
+                .append(columns == null ? "*" : String.join(", ", columns))
+                .append(" FROM ").append(table.name);
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ");
+            appendConditions(sql, params);
+        }
+        if (orderColumn != null) {
+            sql.append(" ORDER BY ").append(orderColumn).append(orderAsc ? " ASC" : " DESC");
+        }
+        appendPaging(sql, params);
+        return sql.toString();
+    }
+
+    /**
+     * 构建统计数量的 SELECT COUNT(1) 语句
+     * @param params 参数列表，用于收集查询参数
+     * @return SELECT COUNT 语句
+     */
+    public String buildCountSql(List<Object> params) {
+        StringBuilder sql = new StringBuilder("SELECT COUNT(1) FROM ").append(table.name);
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ");
+            appendConditions(sql, params);
+        }
+        return sql.toString();
+    }
+
     /**
      * 构建 WHERE 子句
      * @param params 参数列表，用于收集查询参数
@@ -294,36 +499,111 @@ public class QueryWrapper<T> {
             return "";
         }
 
-        List<String> whereParts = new ArrayList<>();
+        StringBuilder where = new StringBuilder();
+        appendConditions(where, params);
+        return where.toString();
+    }
+
+    /* 按顺序生成条件并收集参数，sql 为 null 时只收集参数 */
+    private void appendConditions(StringBuilder sql, List<Object> params) {
+        boolean first = true;
         for (Condition cond : conditions) {
+            if (cond.hasValue && ("IN".equals(cond.operator) || "NOT IN".equals(cond.operator))
+                    && ((Object[]) cond.value).length == 0) {
+                continue;
+            }
+            if (sql != null && !first) {
+                sql.append(" AND ");
+            }
+            first = false;
+
             if (cond.hasValue) {
                 if ("IN".equals(cond.operator) || "NOT IN".equals(cond.operator)) {
-                    // 处理 IN 和 NOT IN 操作
+                    // 处理 IN 和 NOT IN 操作，参数个数补齐到固定的档位，不足的位置重复最后一个值
                     Object[] values = (Object[]) cond.value;
-                    if (values.length > 0) {
-                        String placeholders = String.join(", ", java.util.Collections.nCopies(values.length, "?"));
-                        whereParts.add(cond.column + " " + cond.operator + " (" + placeholders + ")");
-                        for (Object val : values) {
-                            params.add(val);
-                        }
+                    int arity = inArity(values.length);
+                    if (sql != null) {
+                        String[] placeholders = new String[arity];
+                        Arrays.fill(placeholders, "?");
+                        appendIn(sql, cond.column, cond.operator, placeholders);
+                    }
+                    Collections.addAll(params, values);
+                    for (int i = values.length; i < arity; i++) {
+                        params.add(values[values.length - 1]);
                     }
                 } else if ("BETWEEN".equals(cond.operator)) {
                     // 处理 BETWEEN 操作
                     Object[] range = (Object[]) cond.value;
-                    whereParts.add(cond.column + " BETWEEN ? AND ?");
+                    if (sql != null) {
+                        sql.append(cond.column).append(" BETWEEN ? AND ?");
+                    }
                     params.add(range[0]);
                     params.add(range[1]);
                 } else {
                     // 普通操作
-                    whereParts.add(cond.column + " " + cond.operator + " ?");
+                    if (sql != null) {
+                        sql.append(cond.column).append(' ').append(cond.operator).append(" ?");
+                    }
                     params.add(cond.value);
                 }
-            } else {
+            } else if (sql != null) {
                 // 处理不需要参数的条件，如 IS NULL
-                whereParts.add(cond.column + " " + cond.operator);
+                sql.append(cond.column).append(' ').append(cond.operator);
             }
         }
+    }
+
+    /**
+     * IN 列表补齐后的参数个数
+     * 每块 {@link #IN_CHUNK} 个，最后一块向上取整到 2 的幂，使同一列的 IN 条件只会生成少数几种 SQL
+     */
+    static int inArity(int size) {
+        int full = size / IN_CHUNK * IN_CHUNK;
+        int rest = size - full;
+        return rest == 0 ? full : full + Math.max(1, Integer.highestOneBit(rest - 1) << 1);
+    }
 
-        return String.join(" AND ", whereParts);
+    /* 生成 column IN (a, b)，超过 IN_CHUNK 时拆分为 (column IN (...) OR column IN (...)) */
+    private static void appendIn(StringBuilder sql, String column, String operator, String[] items) {
+        boolean chunked = items.length > IN_CHUNK;
+        if (chunked) {
+            sql.append('(');
+        }
+        for (int from = 0; from < items.length; from += IN_CHUNK) {
+            if (from > 0) {
+                sql.append("IN".equals(operator) ? " OR " : " AND ");
+            }
+            sql.append(column).append(' ').append(operator).append(" (");
+            for (int i = from; i < Math.min(from + IN_CHUNK, items.length); i++) {
+                if (i > from) {
+                    sql.append(", ");
+                }
+                sql.append(items[i]);
+            }
+            sql.append(')');
+        }
+        if (chunked) {
+            sql.append(')');
+        }
+    }
+
+    /* 生成分页子句并收集参数，sql 为 null 时只收集参数 */
+    private void appendPaging(StringBuilder sql, List<Object> params) {
+        if (limit == null) {
+            return;
+        }
+        if (offset != null) {
+            // page() 设置的是闭区间 [offset, limit]
+            if (sql != null) {
+                sql.append(" LIMIT ? OFFSET ?");
+            }
+            params.add(limit - offset + 1);
+            params.add(offset);
+        } else {
+            if (sql != null) {
+                sql.append(" LIMIT ?");
+            }
+            params.add(limit);
+        }
     }
-}
\ No newline at end of file
+}
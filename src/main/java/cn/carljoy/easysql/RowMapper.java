@@ -1,54 +1,476 @@
 package cn.carljoy.easysql;
 
+import cn.carljoy.easysql.annotation.Column;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.RecordComponent;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
+@Slf4j
 public final class RowMapper {
+    // 映射计划缓存，按 实体类 + 结果集列标签 区分
+    private static final ConcurrentHashMap<PlanKey, Plan<?>> PLANS = new ConcurrentHashMap<>();
+    // 投影映射计划缓存，按 目标类 + 结果集列标签 区分
+    private static final ConcurrentHashMap<PlanKey, ProjectionPlan<?>> PROJECTIONS = new ConcurrentHashMap<>();
+
+    // 行映射引擎，默认使用反射映射
+    private static volatile Engine engine = Engine.REFLECTIVE;
+
+    /**
+     * 行映射引擎
+     */
+    public enum Engine {
+        /* 基于缓存的 MethodHandle 读写字段 */
+        REFLECTIVE,
+        /* 首次使用时为每个实体生成专用的映射类（需要 ASM），生成失败时回退到反射映射 */
+        GENERATED
+    }
+
+    public static Engine getEngine() {
+        return engine;
+    }
+
+    public static void setEngine(Engine engine) {
+        RowMapper.engine = engine == null ? Engine.REFLECTIVE : engine;
+    }
+
     public static <T> List<T> toList(ResultSet rs, Class<T> clazz) throws SQLException {
+        Plan<T> plan = plan(rs, clazz);
         List<T> list = new ArrayList<>();
         while (rs.next()) {
-            list.add(toBean(rs, clazz));
+            list.add(plan.map(rs));
         }
         return list;
     }
 
-    private static <T> T toBean(ResultSet rs, Class<T> clazz) {
-        try {
-            T obj = clazz.getDeclaredConstructor().newInstance();
-            for (Field f : clazz.getFields()) {
-                String columnName = camelToUnder(f.getName());
-                try {
-                    Object val = rs.getObject(columnName);
+    /**
+     * 读取一次结果集元数据，获取（或构建）对应的映射计划
+     */
+    @SuppressWarnings("unchecked")
+    static <T> Plan<T> plan(ResultSet rs, Class<T> clazz) throws SQLException {
+        ResultSetMetaData meta = rs.getMetaData();
+        String[] labels = new String[meta.getColumnCount()];
+        for (int i = 0; i < labels.length; i++) {
+            labels[i] = meta.getColumnLabel(i + 1);
+        }
+        return (Plan<T>) PLANS.computeIfAbsent(new PlanKey(clazz, List.of(labels)), key -> new Plan<>(clazz, labels));
+    }
+
+    private record PlanKey(Class<?> type, List<String> labels) {
+    }
+
+    /* ---------- 单列读取 ---------- */
+
+    /**
+     * 读取第一列为 long 数组，跳过 NULL，不创建实体与包装对象
+     */
+    public static long[] toLongArray(ResultSet rs) throws SQLException {
+        long[] values = new long[64];
+        int size = 0;
+        while (rs.next()) {
+            long val = rs.getLong(1);
+            if (rs.wasNull()) {
+                continue;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size << 1);
+            }
+            values[size++] = val;
+        }
+        return size == values.length ? values : Arrays.copyOf(values, size);
+    }
+
+    /**
+     * 读取第一列为 int 数组，跳过 NULL，不创建实体与包装对象
+     */
+    public static int[] toIntArray(ResultSet rs) throws SQLException {
+        int[] values = new int[64];
+        int size = 0;
+        while (rs.next()) {
+            int val = rs.getInt(1);
+            if (rs.wasNull()) {
+                continue;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size << 1);
+            }
+            values[size++] = val;
+        }
+        return size == values.length ? values : Arrays.copyOf(values, size);
+    }
+
+    /**
+     * 读取第一列为 double 数组，跳过 NULL，不创建实体与包装对象
+     */
+    public static double[] toDoubleArray(ResultSet rs) throws SQLException {
+        double[] values = new double[64];
+        int size = 0;
+        while (rs.next()) {
+            double val = rs.getDouble(1);
+            if (rs.wasNull()) {
+                continue;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size << 1);
+            }
+            values[size++] = val;
+        }
+        return size == values.length ? values : Arrays.copyOf(values, size);
+    }
+
+    /**
+     * 将结果集映射为 record 或 DTO，列按名称匹配（忽略大小写，支持下划线与驼峰），
+     * 字段上的 {@link Column#name()} 优先；没有对应列的字段保持默认值
+     */
+    public static <R> List<R> toListAs(ResultSet rs, Class<R> type) throws SQLException {
+        ProjectionPlan<R> plan = projection(rs, type);
+        List<R> list = new ArrayList<>();
+        while (rs.next()) {
+            list.add(plan.map(rs));
+        }
+        return list;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <R> ProjectionPlan<R> projection(ResultSet rs, Class<R> type) throws SQLException {
+        ResultSetMetaData meta = rs.getMetaData();
+        String[] labels = new String[meta.getColumnCount()];
+        for (int i = 0; i < labels.length; i++) {
+            labels[i] = meta.getColumnLabel(i + 1);
+        }
+        return (ProjectionPlan<R>) PROJECTIONS.computeIfAbsent(new PlanKey(type, List.of(labels)),
+                key -> new ProjectionPlan<>(type, labels));
+    }
+
+    /**
+     * 投影映射计划
+     * record 通过规范构造器一次性传入全部组件；普通类通过无参构造器创建后逐个写入字段
+     */
+    static final class ProjectionPlan<R> {
+        private final Class<R> type;
+        private final MethodHandle constructor; // record 为规范构造器，普通类为无参构造器
+        private final boolean record;
+        private final int[] columns;            // 每个目标对应的结果集列下标（从 1 开始），0 表示没有对应列
+        private final ColumnReader[] readers;
+        private final Object[] defaults;        // 没有对应列或为 NULL 时使用的值（基本类型不能为 null）
+        private final MethodHandle[] setters;   // 普通类的字段写入器
+
+        private ProjectionPlan(Class<R> type, String[] labels) {
+            this.type = type;
+            this.record = type.isRecord();
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            List<Field> targets = new ArrayList<>();
+            try {
+                if (record) {
+                    RecordComponent[] components = type.getRecordComponents();
+                    Class<?>[] types = new Class<?>[components.length];
+                    for (int i = 0; i < components.length; i++) {
+                        types[i] = components[i].getType();
+                        targets.add(type.getDeclaredField(components[i].getName()));
+                    }
+                    Constructor<R> canonical = type.getDeclaredConstructor(types);
+                    canonical.trySetAccessible();
+                    // 展开为 (Object[])Object，调用时不再逐个适配参数类型
+                    this.constructor = lookup.unreflectConstructor(canonical)
+                            .asType(MethodType.genericMethodType(types.length))
+                            .asSpreader(Object[].class, types.length);
+                } else {
+                    for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+                        for (Field field : c.getDeclaredFields()) {
+                            if (!Modifier.isStatic(field.getModifiers()) && !Modifier.isFinal(field.getModifiers())) {
+                                targets.add(field);
+                            }
+                        }
+                    }
+                    Constructor<R> noArgs = type.getDeclaredConstructor();
+                    noArgs.trySetAccessible();
+                    this.constructor = lookup.unreflectConstructor(noArgs).asType(MethodType.methodType(Object.class));
+                }
+            } catch (NoSuchMethodException | NoSuchFieldException | IllegalAccessException e) {
+                throw new IllegalArgumentException("无法映射到 " + type.getName() + "，record 之外的类需要无参构造器", e);
+            }
+
+            int size = targets.size();
+            this.columns = new int[size];
+            this.readers = new ColumnReader[size];
+            this.defaults = new Object[size];
+            this.setters = record ? null : new MethodHandle[size];
+            for (int i = 0; i < size; i++) {
+                Field field = targets.get(i);
+                columns[i] = columnOf(field, labels);
+                readers[i] = readerFor(field.getType());
+                defaults[i] = defaultValue(field.getType());
+                if (!record) {
+                    try {
+                        field.trySetAccessible();
+                        setters[i] = lookup.unreflectSetter(field)
+                                .asType(MethodType.methodType(void.class, Object.class, Object.class));
+                    } catch (IllegalAccessException e) {
+                        throw new IllegalArgumentException("无法访问字段: " + field, e);
+                    }
+                }
+            }
+        }
+
+        R map(ResultSet rs) {
+            try {
+                if (record) {
+                    Object[] args = new Object[columns.length];
+                    for (int i = 0; i < columns.length; i++) {
+                        Object val = columns[i] == 0 ? null : readers[i].read(rs, columns[i]);
+                        args[i] = val == null ? defaults[i] : val;
+                    }
+                    return type.cast((Object) constructor.invokeExact(args));
+                }
+                Object obj = (Object) constructor.invokeExact();
+                for (int i = 0; i < columns.length; i++) {
+                    if (columns[i] == 0) {
+                        continue;
+                    }
+                    Object val = readers[i].read(rs, columns[i]);
                     if (val != null) {
-                        // 处理类型转换
-                        Object convertedVal = convertValue(val, f.getType());
-                        f.set(obj, convertedVal);
+                        setters[i].invokeExact(obj, val);
                     }
-                } catch (SQLException e) {
-                    // 如果列不存在，跳过该字段
+                }
+                return type.cast(obj);
+            } catch (Throwable e) {
+                throw new RuntimeException("Failed to map ResultSet to " + type.getSimpleName() + ": " + e.getMessage(), e);
+            }
+        }
+
+        /* 按 @Column 名称、字段名、下划线形式依次匹配列标签 */
+        private static int columnOf(Field field, String[] labels) {
+            Column column = field.getAnnotation(Column.class);
+            String[] names = {
+                    column != null && !column.name().isEmpty() ? column.name() : null,
+                    field.getName(),
+                    TableInfo.camelToUnder(field.getName())
+            };
+            for (String name : names) {
+                if (name == null) {
+                    continue;
+                }
+                for (int i = 0; i < labels.length; i++) {
+                    if (labels[i].toLowerCase(Locale.ROOT).equals(name.toLowerCase(Locale.ROOT))) {
+                        return i + 1;
+                    }
+                }
+            }
+            return 0;
+        }
+
+        private static Object defaultValue(Class<?> type) {
+            if (!type.isPrimitive()) {
+                return null;
+            } else if (type == boolean.class) {
+                return false;
+            } else if (type == char.class) {
+                return '\0';
+            } else if (type == long.class) {
+                return 0L;
+            } else if (type == double.class) {
+                return 0D;
+            } else if (type == float.class) {
+                return 0F;
+            } else if (type == short.class) {
+                return (short) 0;
+            } else if (type == byte.class) {
+                return (byte) 0;
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * 映射计划：列下标 -> 字段写入器 + 预先选定的读取方式
+     */
+    static final class Plan<T> {
+        private final Class<T> type;
+        private final EntityPlan entity;
+        private final int[] columns;                  // 结果集列下标（从 1 开始）
+        private final EntityPlan.Property[] properties;
+        private final ColumnReader[] readers;
+        private volatile Function<Object, Object> generated; // 生成的映射器
+        private volatile boolean generateFailed;             // 生成失败后不再重试
+
+        private Plan(Class<T> type, String[] labels) {
+            this.type = type;
+            this.entity = TableInfo.of(type).plan;
+
+            List<EntityPlan.Property> bound = new ArrayList<>();
+            List<Integer> indexes = new ArrayList<>();
+            boolean[] used = new boolean[entity.properties.length];
+            for (int i = 0; i < labels.length; i++) {
+                EntityPlan.Property property = entity.property(labels[i]);
+                // 不存在的列、重复的列以及不可写的字段直接跳过
+                if (property == null || used[property.index] || !property.isWritable()) {
                     continue;
                 }
+                used[property.index] = true;
+                bound.add(property);
+                indexes.add(i + 1);
+            }
+
+            this.properties = bound.toArray(new EntityPlan.Property[0]);
+            this.columns = new int[properties.length];
+            this.readers = new ColumnReader[properties.length];
+            for (int i = 0; i < properties.length; i++) {
+                columns[i] = indexes.get(i);
+                readers[i] = readerFor(properties[i].type);
             }
-            return obj;
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to map ResultSet to " + clazz.getSimpleName() + ": " + e.getMessage(), e);
         }
+
+        T map(ResultSet rs) {
+            if (engine == Engine.GENERATED && !generateFailed) {
+                Function<Object, Object> mapper = generated();
+                if (mapper != null) {
+                    try {
+                        return type.cast(mapper.apply(rs));
+                    } catch (LinkageError e) {
+                        // 运行时发现无法访问，回退到反射映射
+                        disableGenerated(e);
+                    } catch (Exception e) {
+                        throw new RuntimeException("Failed to map ResultSet to " + type.getSimpleName() + ": " + e.getMessage(), e);
+                    }
+                }
+            }
+            try {
+                T obj = type.cast(entity.newInstance());
+                for (int i = 0; i < columns.length; i++) {
+                    Object val = readers[i].read(rs, columns[i]);
+                    if (val != null) {
+                        properties[i].set(obj, val);
+                    }
+                }
+                return obj;
+            } catch (Exception e) {
+                throw new RuntimeException("Failed to map ResultSet to " + type.getSimpleName() + ": " + e.getMessage(), e);
+            }
+        }
+
+        private Function<Object, Object> generated() {
+            Function<Object, Object> mapper = generated;
+            if (mapper == null && !generateFailed) {
+                synchronized (this) {
+                    mapper = generated;
+                    if (mapper == null && !generateFailed) {
+                        try {
+                            mapper = MapperGenerator.generate(type, columns, properties);
+                            generated = mapper;
+                        } catch (Throwable e) {
+                            // ASM 不存在或实体无法直接访问时使用反射映射
+                            disableGenerated(e);
+                        }
+                    }
+                }
+            }
+            return mapper;
+        }
+
+        private void disableGenerated(Throwable e) {
+            generateFailed = true;
+            generated = null;
+            log.warn("无法为 {} 生成行映射器，使用反射映射: {}", type.getName(), e.toString());
+        }
+    }
+
+    /**
+     * 按列下标读取值，SQL NULL 返回 null
+     */
+    @FunctionalInterface
+    interface ColumnReader {
+        Object read(ResultSet rs, int column) throws SQLException;
     }
 
-    private static String camelToUnder(String camel) {
-        return camel.replaceAll("([a-z])([A-Z])", "$1_$2").toLowerCase();
+    /**
+     * 根据字段类型选择对应的 ResultSet 读取方法
+     */
+    static ColumnReader readerFor(Class<?> type) {
+        if (type == int.class || type == Integer.class) {
+            // 整数列以 long 读取，超出字段范围时抛出 ArithmeticException 而不是截断
+            return (rs, column) -> {
+                long val = rs.getLong(column);
+                return rs.wasNull() ? null : Math.toIntExact(val);
+            };
+        } else if (type == long.class || type == Long.class) {
+            return (rs, column) -> {
+                long val = rs.getLong(column);
+                return rs.wasNull() ? null : val;
+            };
+        } else if (type == double.class || type == Double.class) {
+            return (rs, column) -> {
+                double val = rs.getDouble(column);
+                return rs.wasNull() ? null : val;
+            };
+        } else if (type == float.class || type == Float.class) {
+            return (rs, column) -> {
+                float val = rs.getFloat(column);
+                return rs.wasNull() ? null : val;
+            };
+        } else if (type == boolean.class || type == Boolean.class) {
+            return (rs, column) -> {
+                boolean val = rs.getBoolean(column);
+                return rs.wasNull() ? null : val;
+            };
+        } else if (type == short.class || type == Short.class) {
+            return (rs, column) -> {
+                long val = rs.getLong(column);
+                if (rs.wasNull()) {
+                    return null;
+                }
+                int narrowed = Math.toIntExact(val);
+                if ((short) narrowed != narrowed) {
+                    throw new ArithmeticException("short overflow");
+                }
+                return (short) narrowed;
+            };
+        } else if (type == byte.class || type == Byte.class) {
+            return (rs, column) -> {
+                long val = rs.getLong(column);
+                if (rs.wasNull()) {
+                    return null;
+                }
+                int narrowed = Math.toIntExact(val);
+                if ((byte) narrowed != narrowed) {
+                    throw new ArithmeticException("byte overflow");
+                }
+                return (byte) narrowed;
+            };
+        } else if (type == String.class) {
+            return ResultSet::getString;
+        } else if (type == Timestamp.class) {
+            return ResultSet::getTimestamp;
+        } else if (type == LocalDateTime.class) {
+            return (rs, column) -> {
+                Timestamp val = rs.getTimestamp(column);
+                return val == null ? null : val.toLocalDateTime();
+            };
+        }
+        // 其他类型读取原始值后再转换
+        return (rs, column) -> convertValue(rs.getObject(column), type);
     }
 
     /**
      * 转换值类型以匹配目标字段类型
      */
-    private static Object convertValue(Object value, Class<?> targetType) {
+    static Object convertValue(Object value, Class<?> targetType) {
         if (value == null) {
             return null;
         }
@@ -91,4 +513,4 @@ public final class RowMapper {
         // 其他类型直接返回，让反射处理
         return value;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,17 @@
+package cn.carljoy.easysql;
+
+/**
+ * 并行扫描的分区进度回调
+ * 每个分区每处理 {@link BaseDao#SCAN_PROGRESS_INTERVAL} 行及完成时各调用一次，会在多个线程上并发调用
+ */
+@FunctionalInterface
+public interface ScanProgress {
+
+    /**
+     * @param partition  分区序号（从 0 开始）
+     * @param partitions 分区总数
+     * @param rows       该分区已处理的行数
+     * @param done       该分区是否已完成
+     */
+    void onProgress(int partition, int partitions, long rows, boolean done);
+}
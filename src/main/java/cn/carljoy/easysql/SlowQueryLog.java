@@ -0,0 +1,47 @@
+package cn.carljoy.easysql;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 慢查询日志，总耗时达到阈值的语句以 WARN 级别输出
+ */
+@Slf4j
+public class SlowQueryLog implements QueryListener {
+    private final long thresholdNanos;
+    private final LongAdder slowQueries = new LongAdder();
+
+    /**
+     * @param threshold 慢查询阈值
+     */
+    public SlowQueryLog(Duration threshold) {
+        this.thresholdNanos = threshold.toNanos();
+    }
+
+    @Override
+    public void onQuery(QueryEvent event) {
+        if (event.getTotalNanos() < thresholdNanos) {
+            return;
+        }
+        slowQueries.increment();
+        log.warn("慢查询 {}ms [{} {}] rows={} params={} acquire={}ms execute={}ms mapping={}ms{}: {}",
+                millis(event.getTotalNanos()), event.getTable(), event.getOperation(),
+                event.getRows(), event.getParamCount(),
+                millis(event.getAcquireNanos()), millis(event.getExecuteNanos()), millis(event.getMappingNanos()),
+                event.isSuccess() ? "" : " error=" + event.getError().getMessage(),
+                event.getSql());
+    }
+
+    /**
+     * 获取已记录的慢查询数量
+     */
+    public long getSlowQueries() {
+        return slowQueries.sum();
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.3f", nanos / 1_000_000.0);
+    }
+}
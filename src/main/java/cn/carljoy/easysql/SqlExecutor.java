@@ -0,0 +1,503 @@
+package cn.carljoy.easysql;
+
+import cc.carm.lib.easysql.api.SQLManager;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 基于 SQLManager 连接池的 JDBC 执行器
+ * 用于分块提交、批量语句等 EasySQL 构建器不便表达的操作
+ */
+@Slf4j
+final class SqlExecutor {
+    // 全局监听器，对所有 DAO 生效
+    private static final List<QueryListener> GLOBAL_LISTENERS = new CopyOnWriteArrayList<>();
+
+    private final SQLManager sm;
+
+    private final String table; // 写操作后递增该表的查询缓存版本号
+    private final List<QueryListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile Dialect dialect;
+    private volatile StatementCache statementCache; // 为 null 时不复用语句
+
+    SqlExecutor(SQLManager sm, String table) {
+        this.sm = sm;
+        this.table = table;
+    }
+
+    StatementCache getStatementCache() {
+        return statementCache;
+    }
+
+    /**
+     * 设置语句缓存，传入 null 关闭复用，原缓存中的语句会被关闭
+     */
+    void setStatementCache(StatementCache statementCache) {
+        StatementCache previous = this.statementCache;
+        this.statementCache = statementCache;
+        if (previous != null && previous != statementCache) {
+            previous.clear();
+        }
+    }
+
+    /**
+     * 获取数据库方言，首次调用时通过连接元数据识别
+     */
+    Dialect dialect() {
+        Dialect current = dialect;
+        if (current == null) {
+            try (Connection conn = sm.getConnection()) {
+                current = dialect(conn);
+            } catch (SQLException e) {
+                // 获取连接失败时不缓存，下次重新识别
+                return Dialect.OTHER;
+            }
+        }
+        return current;
+    }
+
+    /* 使用已获取的连接识别数据库方言，避免再占用一个连接 */
+    private Dialect dialect(Connection conn) throws SQLException {
+        Dialect current = dialect;
+        if (current == null) {
+            current = Dialect.of(conn.getMetaData().getDatabaseProductName());
+            dialect = current;
+        }
+        return current;
+    }
+
+    /**
+     * 待执行的一个分块：SQL 与对应参数
+     */
+    record Chunk(String sql, Object[] params) {
+    }
+
+    /**
+     * 结果集处理器
+     */
+    @FunctionalInterface
+    interface ResultSetHandler<R> {
+        R handle(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * 执行查询，结果集在 handler 返回后关闭
+     */
+    <R> R query(String sql, Object[] params, ResultSetHandler<R> handler) throws SQLException {
+        StatementCache cache = statementCache;
+        Probe probe = probe(sql, params);
+        try (Connection conn = sm.getConnection()) {
+            if (probe != null) {
+                probe.acquired();
+            }
+            PreparedStatement ps = prepare(cache, conn, sql, params == null ? 0 : params.length);
+            try {
+                bind(ps, params);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (probe != null) {
+                        probe.executed();
+                    }
+                    R result = handler.handle(rs);
+                    if (probe != null) {
+                        probe.finish(rowsOf(result), null);
+                    }
+                    return result;
+                }
+            } finally {
+                release(cache, ps);
+            }
+        } catch (SQLException | RuntimeException e) {
+            if (probe != null) {
+                probe.finish(0, e);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 执行单条更新语句，返回影响行数
+     */
+    int update(String sql, Object[] params) throws SQLException {
+        StatementCache cache = statementCache;
+        Probe probe = probe(sql, params);
+        try (Connection conn = sm.getConnection()) {
+            if (probe != null) {
+                probe.acquired();
+            }
+            PreparedStatement ps = prepare(cache, conn, sql, params == null ? 0 : params.length);
+            try {
+                bind(ps, params);
+                int count = ps.executeUpdate();
+                if (probe != null) {
+                    probe.finish(count, null);
+                }
+                return count;
+            } finally {
+                release(cache, ps);
+            }
+        } catch (SQLException | RuntimeException e) {
+            if (probe != null) {
+                probe.finish(0, e);
+            }
+            throw e;
+        } finally {
+            TableVersions.bump(table);
+        }
+    }
+
+    /**
+     * 以只读、仅向前的游标执行查询，按需逐行映射为实体
+     * 返回的流持有连接，关闭流时释放结果集、语句和连接
+     *
+     * @param fetchSize 每次从数据库获取的行数，MySQL 下 Integer.MIN_VALUE 表示逐行流式读取
+     */
+    <T> Stream<T> stream(String sql, Object[] params, int fetchSize, Class<T> type) throws SQLException {
+        Probe probe = probe(sql, params);
+        Connection conn;
+        try {
+            conn = sm.getConnection();
+        } catch (SQLException | RuntimeException e) {
+            if (probe != null) {
+                probe.finish(0, e);
+            }
+            throw e;
+        }
+        if (probe != null) {
+            probe.acquired();
+        }
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        RowMapper.Plan<T> plan;
+        boolean autoCommit = true;
+        try {
+            autoCommit = conn.getAutoCommit();
+            if (autoCommit && dialect(conn) == Dialect.POSTGRESQL) {
+                // PostgreSQL 只有在事务中才会按 fetchSize 分批读取
+                conn.setAutoCommit(false);
+            }
+            ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            bind(ps, params);
+            rs = ps.executeQuery();
+            if (probe != null) {
+                probe.executed();
+            }
+            plan = RowMapper.plan(rs, type);
+        } catch (SQLException | RuntimeException e) {
+            close(rs, ps, conn, autoCommit);
+            if (probe != null) {
+                probe.finish(0, e);
+            }
+            throw e;
+        }
+
+        ResultSet resultSet = rs;
+        PreparedStatement statement = ps;
+        boolean restoreAutoCommit = autoCommit;
+        long[] count = new long[1];
+        Spliterator<T> rows = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                try {
+                    if (!resultSet.next()) {
+                        return false;
+                    }
+                } catch (SQLException e) {
+                    throw new RuntimeException("读取结果集失败: " + e.getMessage(), e);
+                }
+                count[0]++;
+                action.accept(plan.map(resultSet));
+                return true;
+            }
+        };
+        return StreamSupport.stream(rows, false)
+                .onClose(() -> {
+                    close(resultSet, statement, conn, restoreAutoCommit);
+                    if (probe != null) {
+                        probe.finish(count[0], null);
+                    }
+                });
+    }
+
+    private static void close(ResultSet rs, PreparedStatement ps, Connection conn, boolean autoCommit) {
+        try {
+            if (rs != null) {
+                rs.close();
+            }
+            if (ps != null) {
+                ps.close();
+            }
+            // 恢复为分批读取而关闭的自动提交
+            if (autoCommit && !conn.getAutoCommit()) {
+                conn.rollback();
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException ignored) {
+            // 关闭失败时仍然归还连接
+        } finally {
+            try {
+                conn.close();
+            } catch (SQLException ignored) {
+            }
+        }
+    }
+
+    /**
+     * 在同一个连接上依次执行 counts.length 个分块，每个分块单独作为一个事务提交
+     * 某个分块失败时回滚该分块并抛出异常，之前已提交的分块保留，其影响行数已写入 counts
+     *
+     * @param counts 每个分块的影响行数，长度即分块数量
+     * @param source 按下标生成分块，仅在执行到该分块时调用
+     */
+    void executeChunks(int[] counts, IntFunction<Chunk> source) throws SQLException {
+        StatementCache cache = statementCache;
+        long start = hasListeners() ? System.nanoTime() : 0L;
+        try (Connection conn = sm.getConnection()) {
+            // 获取连接的耗时计入第一个分块
+            long acquireNanos = start == 0L ? 0L : System.nanoTime() - start;
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                for (int i = 0; i < counts.length; i++) {
+                    Chunk chunk = source.apply(i);
+                    Probe probe = probe(chunk.sql(), chunk.params());
+                    if (probe != null) {
+                        probe.acquired(i == 0 ? acquireNanos : 0L);
+                    }
+                    PreparedStatement ps = null;
+                    try {
+                        ps = prepare(cache, conn, chunk.sql(), chunk.params() == null ? 0 : chunk.params().length);
+                        bind(ps, chunk.params());
+                        counts[i] = ps.executeUpdate();
+                        conn.commit();
+                        if (probe != null) {
+                            probe.finish(counts[i], null);
+                        }
+                    } catch (SQLException | RuntimeException e) {
+                        counts[i] = 0;
+                        if (probe != null) {
+                            probe.finish(0, e);
+                        }
+                        conn.rollback();
+                        throw e;
+                    } finally {
+                        if (ps != null) {
+                            release(cache, ps);
+                        }
+                    }
+                }
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        } finally {
+            TableVersions.bump(table);
+        }
+    }
+
+    /**
+     * 以 JDBC 批处理在一个事务中执行同一条语句的多组参数，失败时整体回滚并抛出异常
+     *
+     * @return 每组参数的影响行数，驱动无法报告时为 {@link Statement#SUCCESS_NO_INFO}
+     */
+    int[] executeBatch(String sql, List<Object[]> rows) throws SQLException {
+        StatementCache cache = statementCache;
+        Probe probe = probe(sql, rows.isEmpty() ? null : rows.getFirst());
+        try (Connection conn = sm.getConnection()) {
+            if (probe != null) {
+                probe.acquired();
+            }
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            PreparedStatement ps = null;
+            try {
+                ps = prepare(cache, conn, sql, rows.isEmpty() ? 0 : rows.getFirst().length);
+                for (Object[] row : rows) {
+                    bind(ps, row);
+                    ps.addBatch();
+                }
+                int[] counts = ps.executeBatch();
+                conn.commit();
+                if (probe != null) {
+                    long total = 0;
+                    for (int count : counts) {
+                        total += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0);
+                    }
+                    probe.finish(total, null);
+                }
+                return counts;
+            } catch (SQLException | RuntimeException e) {
+                if (probe != null) {
+                    probe.finish(0, e);
+                }
+                conn.rollback();
+                throw e;
+            } finally {
+                if (ps != null) {
+                    ps.clearBatch();
+                    release(cache, ps);
+                }
+                conn.setAutoCommit(autoCommit);
+            }
+        } finally {
+            TableVersions.bump(table);
+        }
+    }
+
+    /* ---------- 监听器 ---------- */
+
+    void addListener(QueryListener listener) {
+        listeners.add(listener);
+    }
+
+    void removeListener(QueryListener listener) {
+        listeners.remove(listener);
+    }
+
+    static void addGlobalListener(QueryListener listener) {
+        GLOBAL_LISTENERS.add(listener);
+    }
+
+    static void removeGlobalListener(QueryListener listener) {
+        GLOBAL_LISTENERS.remove(listener);
+    }
+
+    private boolean hasListeners() {
+        return !listeners.isEmpty() || !GLOBAL_LISTENERS.isEmpty();
+    }
+
+    /* 有监听器时开始计时，否则返回 null，调用方跳过全部计时 */
+    private Probe probe(String sql, Object[] params) {
+        return hasListeners() ? new Probe(sql, params == null ? 0 : params.length) : null;
+    }
+
+    /* 返回的行数：集合、数组按长度，单个对象按 1 */
+    private static long rowsOf(Object result) {
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result != null && result.getClass().isArray()) {
+            return Array.getLength(result);
+        }
+        return result == null ? 0 : 1;
+    }
+
+    /**
+     * 一条语句的计时，依次记录获取连接、执行语句的时间点，结束时通知监听器
+     */
+    private final class Probe {
+        private final String sql;
+        private final int paramCount;
+        private final long start = System.nanoTime();
+        private long acquireNanos = -1;
+        private long acquiredAt;
+        private long executedAt;
+        private boolean finished;
+
+        Probe(String sql, int paramCount) {
+            this.sql = sql;
+            this.paramCount = paramCount;
+        }
+
+        void acquired() {
+            this.acquiredAt = System.nanoTime();
+            this.acquireNanos = acquiredAt - start;
+        }
+
+        /* 连接已在计时开始前获取，直接指定获取连接的耗时 */
+        void acquired(long nanos) {
+            this.acquiredAt = start;
+            this.acquireNanos = nanos;
+        }
+
+        void executed() {
+            this.executedAt = System.nanoTime();
+        }
+
+        void finish(long rows, Throwable error) {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            long end = System.nanoTime();
+            long acquire;
+            long execute;
+            long mapping;
+            if (acquireNanos < 0) {
+                // 获取连接失败
+                acquire = end - start;
+                execute = 0;
+                mapping = 0;
+            } else {
+                long executeEnd = executedAt == 0 ? end : executedAt;
+                acquire = acquireNanos;
+                execute = Math.max(0, executeEnd - acquiredAt);
+                mapping = executedAt == 0 ? 0 : end - executedAt;
+            }
+            QueryEvent event = new QueryEvent(table, sql, paramCount, rows, acquire, execute, mapping, error);
+            notify(listeners, event);
+            notify(GLOBAL_LISTENERS, event);
+        }
+
+        private void notify(List<QueryListener> targets, QueryEvent event) {
+            for (QueryListener listener : targets) {
+                try {
+                    listener.onQuery(event);
+                } catch (RuntimeException e) {
+                    log.warn("SQL 执行监听器处理失败: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    /* 开启语句缓存时从缓存获取，否则新建 */
+    private static PreparedStatement prepare(StatementCache cache, Connection conn, String sql,
+                                             int paramCount) throws SQLException {
+        return cache != null ? cache.prepare(conn, sql, paramCount) : conn.prepareStatement(sql);
+    }
+
+    /* 缓存的语句只清空参数留待复用，其余直接关闭 */
+    private static void release(StatementCache cache, PreparedStatement ps) throws SQLException {
+        if (cache != null) {
+            cache.release(ps);
+        } else {
+            ps.close();
+        }
+    }
+
+    /* 生成 count 个以逗号分隔的占位符 */
+    static String placeholders(int count) {
+        StringBuilder sb = new StringBuilder(count * 3);
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append('?');
+        }
+        return sb.toString();
+    }
+
+    static void bind(PreparedStatement ps, Object[] params) throws SQLException {
+        if (params == null) {
+            return;
+        }
+        for (int i = 0; i < params.length; i++) {
+            ps.setObject(i + 1, params[i]);
+        }
+    }
+}
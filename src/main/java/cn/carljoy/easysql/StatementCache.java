@@ -0,0 +1,282 @@
+package cn.carljoy.easysql;
+
+import com.zaxxer.hikari.HikariConfig;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 预处理语句缓存
+ * <p>
+ * 按物理连接维护有界的 LRU 缓存，语句通过连接池代理创建，仍由连接池跟踪与关闭（泄漏检测照常生效）。
+ * HikariCP 在连接归还时关闭该次借出期间创建的语句，因此同一次借出内重复的 SQL 直接复用，
+ * 之后的借出发现语句已关闭时重新预处理；跨借出的复用交给驱动自身的语句缓存，
+ * 可用 {@link #configureDriverCache(HikariConfig, int)} 在创建连接池前开启。
+ * <p>
+ * 只缓存参数不超过 maxParams 个的语句，多行 INSERT、大的 IN 分块等一次性 SQL 不会挤掉按主键操作的热点语句。
+ * 除每个连接的上限外还限制全部连接的语句总数，需要淘汰时先清理已关闭的语句与连接池关闭的物理连接；
+ * 总数已满且当前连接没有可淘汰的语句时，新语句不进入缓存，用完即关闭
+ */
+public final class StatementCache {
+    // 未指定总数上限时，按每个连接的上限乘以该连接数计算
+    public static final int DEFAULT_MAX_CONNECTIONS = 32;
+    // 默认只缓存参数个数不超过该值的语句
+    public static final int DEFAULT_MAX_PARAMS = 128;
+
+    private final int maxSize;  // 每个物理连接最多缓存的语句数量
+    private final int maxTotal; // 全部连接最多缓存的语句数量
+    private final int maxParams; // 参数个数超过该值的语句不进入缓存
+    private final Map<Connection, Map<String, PreparedStatement>> caches = new ConcurrentHashMap<>();
+    private final Set<PreparedStatement> cached = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger total = new AtomicInteger();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public StatementCache(int maxSize) {
+        this(maxSize, maxSize * DEFAULT_MAX_CONNECTIONS);
+    }
+
+    /**
+     * @param maxSize  每个物理连接最多缓存的语句数量
+     * @param maxTotal 全部连接最多缓存的语句数量
+     */
+    public StatementCache(int maxSize, int maxTotal) {
+        this(maxSize, maxTotal, DEFAULT_MAX_PARAMS);
+    }
+
+    /**
+     * @param maxSize   每个物理连接最多缓存的语句数量
+     * @param maxTotal  全部连接最多缓存的语句数量
+     * @param maxParams 参数个数超过该值的语句不进入缓存
+     */
+    public StatementCache(int maxSize, int maxTotal, int maxParams) {
+        if (maxSize <= 0 || maxTotal <= 0 || maxParams < 0) {
+            throw new IllegalArgumentException("缓存大小必须大于 0");
+        }
+        this.maxSize = maxSize;
+        this.maxTotal = maxTotal;
+        this.maxParams = maxParams;
+    }
+
+    /**
+     * 在创建连接池前开启驱动自身的预处理语句缓存，按 JDBC URL 识别 MySQL / MariaDB 与 PostgreSQL，其他数据库不做修改
+     *
+     * @param config    连接池配置
+     * @param cacheSize 每个连接缓存的语句数量
+     */
+    public static void configureDriverCache(HikariConfig config, int cacheSize) {
+        String url = config.getJdbcUrl();
+        if (url == null) {
+            return;
+        }
+        if (url.startsWith("jdbc:mysql:") || url.startsWith("jdbc:mariadb:")) {
+            config.addDataSourceProperty("cachePrepStmts", "true");
+            config.addDataSourceProperty("useServerPrepStmts", "true");
+            config.addDataSourceProperty("prepStmtCacheSize", String.valueOf(cacheSize));
+            config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+        } else if (url.startsWith("jdbc:postgresql:")) {
+            config.addDataSourceProperty("prepareThreshold", "1");
+            config.addDataSourceProperty("preparedStatementCacheQueries", String.valueOf(cacheSize));
+        }
+    }
+
+    /**
+     * 获取缓存的语句，不存在或已关闭时通过 conn 重新创建
+     * 调用方使用完毕后不应关闭语句，而是调用 {@link #release(PreparedStatement)}
+     *
+     * @param paramCount 语句的参数个数，超过 maxParams 时不经过缓存
+     */
+    PreparedStatement prepare(Connection conn, String sql, int paramCount) throws SQLException {
+        if (paramCount > maxParams) {
+            return conn.prepareStatement(sql);
+        }
+        // 同一物理连接同一时间只会借给一个线程，按连接加锁不会产生竞争
+        Map<String, PreparedStatement> cache = caches.computeIfAbsent(physical(conn), key -> new LinkedHashMap<>(16, 0.75f, true));
+        synchronized (cache) {
+            PreparedStatement ps = cache.get(sql);
+            if (ps != null && !ps.isClosed()) {
+                hits.increment();
+                return ps;
+            }
+        }
+        misses.increment();
+        if (total.get() >= maxTotal) {
+            // 需要淘汰时才清理，并在持有当前连接的锁之外进行，避免与其他连接的锁交叉
+            purgeClosed();
+        }
+        synchronized (cache) {
+            remove(cache, sql);
+            PreparedStatement ps = conn.prepareStatement(sql);
+            if (cache.size() >= maxSize || total.get() >= maxTotal) {
+                removeClosed(cache);
+            }
+            if (cache.size() >= maxSize || total.get() >= maxTotal) {
+                if (cache.isEmpty()) {
+                    // 其他连接可能正在使用各自的语句，不能跨连接淘汰
+                    return ps;
+                }
+                evictions.increment();
+                closeQuietly(remove(cache, cache.keySet().iterator().next()));
+            }
+            cache.put(sql, ps);
+            cached.add(ps);
+            total.incrementAndGet();
+            return ps;
+        }
+    }
+
+    /**
+     * 归还语句：缓存中的语句只清空参数留待复用，未进入缓存的语句直接关闭
+     */
+    void release(PreparedStatement ps) throws SQLException {
+        if (cached.contains(ps)) {
+            ps.clearParameters();
+        } else {
+            ps.close();
+        }
+    }
+
+    /**
+     * 关闭并清空所有缓存的语句
+     */
+    public void clear() {
+        for (Iterator<Map.Entry<Connection, Map<String, PreparedStatement>>> it = caches.entrySet().iterator(); it.hasNext(); ) {
+            drop(it.next().getValue());
+            it.remove();
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int getMaxTotal() {
+        return maxTotal;
+    }
+
+    public int getMaxParams() {
+        return maxParams;
+    }
+
+    /* 命中次数 */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /* 未命中（新建语句）次数 */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /* 因超出容量被淘汰的语句数量 */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /* 当前缓存的语句总数 */
+    public int size() {
+        return total.get();
+    }
+
+    /* 当前缓存了语句的物理连接数量 */
+    public int getConnections() {
+        return caches.size();
+    }
+
+    @Override
+    public String toString() {
+        return "StatementCache{" +
+                "size=" + size() +
+                ", connections=" + getConnections() +
+                ", hits=" + getHits() +
+                ", misses=" + getMisses() +
+                ", evictions=" + getEvictions() +
+                '}';
+    }
+
+    /* 移除连接池已经关闭的物理连接及其语句，以及随连接归还被关闭的语句 */
+    private void purgeClosed() {
+        for (Iterator<Map.Entry<Connection, Map<String, PreparedStatement>>> it = caches.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Connection, Map<String, PreparedStatement>> entry = it.next();
+            boolean closed;
+            try {
+                closed = entry.getKey().isClosed();
+            } catch (SQLException e) {
+                closed = true;
+            }
+            if (closed) {
+                it.remove();
+                drop(entry.getValue());
+            } else {
+                synchronized (entry.getValue()) {
+                    removeClosed(entry.getValue());
+                }
+            }
+        }
+    }
+
+    /* 移除一个连接中已关闭的语句，调用方需持有该连接的锁 */
+    private void removeClosed(Map<String, PreparedStatement> cache) {
+        for (Iterator<Map.Entry<String, PreparedStatement>> it = cache.entrySet().iterator(); it.hasNext(); ) {
+            PreparedStatement ps = it.next().getValue();
+            boolean closed;
+            try {
+                closed = ps.isClosed();
+            } catch (SQLException e) {
+                closed = true;
+            }
+            if (closed) {
+                it.remove();
+                if (cached.remove(ps)) {
+                    total.decrementAndGet();
+                }
+            }
+        }
+    }
+
+    /* 关闭一个连接的全部语句 */
+    private void drop(Map<String, PreparedStatement> cache) {
+        synchronized (cache) {
+            for (String sql : cache.keySet().toArray(new String[0])) {
+                closeQuietly(remove(cache, sql));
+            }
+        }
+    }
+
+    private PreparedStatement remove(Map<String, PreparedStatement> cache, String sql) {
+        PreparedStatement ps = cache.remove(sql);
+        if (ps != null && cached.remove(ps)) {
+            total.decrementAndGet();
+        }
+        return ps;
+    }
+
+    /* 获取连接池代理背后的物理连接，只用作缓存的键 */
+    private static Connection physical(Connection conn) {
+        try {
+            return conn.isWrapperFor(Connection.class) ? conn.unwrap(Connection.class) : conn;
+        } catch (SQLException e) {
+            return conn;
+        }
+    }
+
+    private static void closeQuietly(PreparedStatement ps) {
+        if (ps == null) {
+            return;
+        }
+        try {
+            ps.close();
+        } catch (SQLException ignored) {
+        }
+    }
+}
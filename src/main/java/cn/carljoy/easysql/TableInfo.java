@@ -14,6 +14,7 @@ public final class TableInfo {
     public final String pk;     // 主键列名
     public final Class<?> type; // 对应实体类
     public final List<ColumnInfo> columns; // 字段信息
+    public final EntityPlan plan; // 实体访问计划
     
     // 缓存已解析的 TableInfo
     private static final ConcurrentHashMap<Class<?>, TableInfo> CACHE = new ConcurrentHashMap<>();
@@ -30,6 +31,8 @@ public final class TableInfo {
         this.pk = findPk(clazz);
         // 3. 字段信息
         this.columns = collectColumns(clazz);
+        // 4. 实体访问计划
+        this.plan = new EntityPlan(this);
     }
 
     public static TableInfo of(Class<?> clazz) {
@@ -60,7 +63,7 @@ public final class TableInfo {
         return columns;
     }
 
-    private static String camelToUnder(String camel) {
+    static String camelToUnder(String camel) {
         return camel.replaceAll("([a-z])([A-Z])", "$1_$2").toLowerCase();
     }
 
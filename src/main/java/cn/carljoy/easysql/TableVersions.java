@@ -0,0 +1,32 @@
+package cn.carljoy.easysql;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 表的数据版本号，所有 DAO 共享
+ * 每次写操作后递增，查询缓存以版本号区分新旧结果；不依赖 Caffeine，未开启缓存时也可以安全调用
+ */
+final class TableVersions {
+    // 表名（小写） -> 版本号
+    private static final Map<String, AtomicLong> VERSIONS = new ConcurrentHashMap<>();
+
+    private TableVersions() {
+    }
+
+    /* 获取表的当前版本号 */
+    static long get(String table) {
+        return of(table).get();
+    }
+
+    /* 递增表的版本号 */
+    static void bump(String table) {
+        of(table).incrementAndGet();
+    }
+
+    private static AtomicLong of(String table) {
+        return VERSIONS.computeIfAbsent(table.toLowerCase(Locale.ROOT), key -> new AtomicLong());
+    }
+}
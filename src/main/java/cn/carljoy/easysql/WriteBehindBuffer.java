@@ -0,0 +1,354 @@
+package cn.carljoy.easysql;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 写缓冲（write-behind）
+ * <p>
+ * 按主键合并更新，同一列以最后一次的值为准；按时间间隔或积压数量，将字段组合相同的更新以 JDBC 批处理写入。
+ * 缓冲中的更新在写入前对查询不可见。批处理失败时逐行重试，只有自身写入失败的更新会重新放回缓冲
+ * （已有更新的列保留新值），连续失败达到 {@link #MAX_ATTEMPTS} 次后丢弃并计入 droppedWrites。
+ * <p>
+ * 关闭后剩余的更新会全部写入，之后的更新直接同步执行 {@link BaseDao#updateById(Object, boolean)}
+ *
+ * @param <T> 实体类型
+ */
+@Slf4j
+public final class WriteBehindBuffer<T> implements AutoCloseable {
+    // 单条更新最多尝试写入的次数
+    public static final int MAX_ATTEMPTS = 3;
+
+    private final BaseDao<T> dao;
+    private final EntityPlan plan;
+    private final int flushThreshold;
+    private final Map<Object, Pending> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final Object flushLock = new Object();
+    // 更新在读锁下加入缓冲，close 取写锁后不会再有更新进入缓冲
+    private final ReentrantReadWriteLock closeLock = new ReentrantReadWriteLock();
+    private volatile boolean closed;
+
+    private final LongAdder bufferedWrites = new LongAdder();
+    private final LongAdder coalescedWrites = new LongAdder();
+    private final LongAdder flushedRows = new LongAdder();
+    private final LongAdder droppedWrites = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder failedFlushes = new LongAdder();
+    private final LongAdder flushNanos = new LongAdder();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+    private volatile long lastFlushNanos;
+
+    WriteBehindBuffer(BaseDao<T> dao, EntityPlan plan, Duration interval, int flushThreshold) {
+        if (plan.pk == null) {
+            throw new IllegalStateException("实体没有主键，无法使用写缓冲");
+        }
+        if (interval.isZero() || interval.isNegative()) {
+            throw new IllegalArgumentException("写入间隔必须大于 0");
+        }
+        if (flushThreshold <= 0) {
+            throw new IllegalArgumentException("写入阈值必须大于 0");
+        }
+        this.dao = dao;
+        this.plan = plan;
+        this.flushThreshold = flushThreshold;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "easysql-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long nanos = interval.toNanos();
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, nanos, nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 缓冲一次更新，忽略 null 值
+     */
+    public boolean update(T entity) {
+        return update(entity, true);
+    }
+
+    /**
+     * 缓冲一次更新，会立即设置更新时间字段并读取实体当前的值，之后修改实体不会影响已缓冲的更新
+     *
+     * @param ignoreNulls 为 true 时 null 值不会覆盖数据库中的值
+     * @return 主键为空或没有要更新的列时返回 false
+     */
+    public boolean update(T entity, boolean ignoreNulls) {
+        closeLock.readLock().lock();
+        try {
+            if (!closed) {
+                return buffer(entity, ignoreNulls);
+            }
+        } finally {
+            closeLock.readLock().unlock();
+        }
+        return dao.updateById(entity, ignoreNulls);
+    }
+
+    private boolean buffer(T entity, boolean ignoreNulls) {
+        plan.setTimestamps(entity, false);
+        Object pkValue = plan.pk.get(entity);
+        if (pkValue == null) {
+            return false;
+        }
+
+        Object[] values = plan.values(entity);
+        BitSet mask = new BitSet(values.length);
+        for (EntityPlan.Property property : plan.nonPk) {
+            if (!ignoreNulls || values[property.index] != null) {
+                mask.set(property.index);
+            }
+        }
+        if (mask.isEmpty()) {
+            return false;
+        }
+
+        bufferedWrites.increment();
+        pending.merge(EntityPlan.idKey(pkValue), new Pending(pkValue, values, mask), (current, update) -> {
+            coalescedWrites.increment();
+            return current.overwrite(update);
+        });
+        if (pending.size() >= flushThreshold && flushScheduled.compareAndSet(false, true)) {
+            try {
+                scheduler.execute(() -> {
+                    flushScheduled.set(false);
+                    flushQuietly();
+                });
+            } catch (RuntimeException e) {
+                // 正在关闭，剩余的数据由 close 写入
+                flushScheduled.set(false);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 立即写入当前缓冲的全部更新
+     *
+     * @return 写入的行数
+     */
+    public int flush() {
+        synchronized (flushLock) {
+            if (pending.isEmpty()) {
+                return 0;
+            }
+            long start = System.nanoTime();
+
+            // 逐个取出，取出之后到达的更新进入下一轮
+            Map<BitSet, List<Pending>> groups = new HashMap<>();
+            for (Object key : pending.keySet()) {
+                Pending update = pending.remove(key);
+                if (update != null) {
+                    groups.computeIfAbsent(update.mask, mask -> new ArrayList<>()).add(update);
+                }
+            }
+
+            int total = 0;
+            for (Map.Entry<BitSet, List<Pending>> group : groups.entrySet()) {
+                total += flushGroup(group.getKey(), group.getValue());
+            }
+
+            long elapsed = System.nanoTime() - start;
+            flushes.increment();
+            flushNanos.add(elapsed);
+            maxFlushNanos.accumulateAndGet(elapsed, Math::max);
+            lastFlushNanos = elapsed;
+            return total;
+        }
+    }
+
+    private int flushGroup(BitSet mask, List<Pending> updates) {
+        EntityPlan.Property[] columns = new EntityPlan.Property[mask.cardinality()];
+        int c = 0;
+        for (int i = mask.nextSetBit(0); i >= 0; i = mask.nextSetBit(i + 1)) {
+            columns[c++] = plan.properties[i];
+        }
+
+        List<Object[]> rows = new ArrayList<>(updates.size());
+        for (Pending update : updates) {
+            Object[] row = new Object[columns.length + 1];
+            for (int i = 0; i < columns.length; i++) {
+                row[i] = update.values[columns[i].index];
+            }
+            row[columns.length] = update.pk;
+            rows.add(row);
+        }
+
+        try {
+            int count = dao.updateBatchByIds(columns, rows);
+            flushedRows.add(count);
+            return count;
+        } catch (Exception e) {
+            failedFlushes.increment();
+            log.error("写缓冲批量更新失败，逐行重试: {}", e.getMessage());
+            e.printStackTrace();
+        }
+
+        // 逐行写入，只有自身失败的更新计入尝试次数，避免一行错误数据拖累整组
+        int total = 0;
+        for (int i = 0; i < updates.size(); i++) {
+            try {
+                int count = dao.updateBatchByIds(columns, List.<Object[]>of(rows.get(i)));
+                flushedRows.add(count);
+                total += count;
+            } catch (Exception e) {
+                log.error("写缓冲更新主键为 {} 的数据失败: {}", updates.get(i).pk, e.getMessage());
+                requeue(updates.get(i));
+            }
+        }
+        return total;
+    }
+
+    /* 放回写入失败的更新，期间到达的新值优先，尝试次数累计 */
+    private void requeue(Pending update) {
+        if (++update.attempts >= MAX_ATTEMPTS) {
+            droppedWrites.increment();
+            log.error("写缓冲丢弃主键为 {} 的更新，已连续失败 {} 次", update.pk, update.attempts);
+            return;
+        }
+        pending.merge(EntityPlan.idKey(update.pk), update, (current, failed) -> failed.overwrite(current));
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("写缓冲写入失败: {}", e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 停止定时写入并写入剩余的全部更新
+     * 写入失败的更新会重试，直到成功或被丢弃
+     */
+    @Override
+    public void close() {
+        closeLock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // 每轮失败的更新都会增加尝试次数，最多 MAX_ATTEMPTS 轮后缓冲一定为空
+        for (int i = 0; i < MAX_ATTEMPTS && !pending.isEmpty(); i++) {
+            flushQuietly();
+        }
+    }
+
+    /* 当前积压的主键数量 */
+    public int getQueueDepth() {
+        return pending.size();
+    }
+
+    /* 接收的更新次数 */
+    public long getBufferedWrites() {
+        return bufferedWrites.sum();
+    }
+
+    /* 被合并到已有更新中的次数，即省去的写入次数 */
+    public long getCoalescedWrites() {
+        return coalescedWrites.sum();
+    }
+
+    /* 已写入数据库的行数 */
+    public long getFlushedRows() {
+        return flushedRows.sum();
+    }
+
+    /* 多次写入失败后被丢弃的更新数量 */
+    public long getDroppedWrites() {
+        return droppedWrites.sum();
+    }
+
+    /* 写入次数 */
+    public long getFlushes() {
+        return flushes.sum();
+    }
+
+    /* 写入失败的批次数 */
+    public long getFailedFlushes() {
+        return failedFlushes.sum();
+    }
+
+    /* 最近一次写入的耗时（毫秒） */
+    public double getLastFlushMillis() {
+        return lastFlushNanos / 1_000_000.0;
+    }
+
+    /* 平均写入耗时（毫秒） */
+    public double getAverageFlushMillis() {
+        long count = flushes.sum();
+        return count == 0 ? 0 : flushNanos.sum() / 1_000_000.0 / count;
+    }
+
+    /* 最长写入耗时（毫秒） */
+    public double getMaxFlushMillis() {
+        return maxFlushNanos.get() / 1_000_000.0;
+    }
+
+    @Override
+    public String toString() {
+        return "WriteBehindBuffer{" +
+                "queueDepth=" + getQueueDepth() +
+                ", buffered=" + getBufferedWrites() +
+                ", coalesced=" + getCoalescedWrites() +
+                ", flushedRows=" + getFlushedRows() +
+                ", dropped=" + getDroppedWrites() +
+                ", avgFlushMillis=" + getAverageFlushMillis() +
+                '}';
+    }
+
+    /* 一个主键待写入的列值 */
+    private static final class Pending {
+        final Object pk;
+        final Object[] values; // 按 plan.properties 下标
+        final BitSet mask;     // 需要写入的列
+        int attempts;
+
+        Pending(Object pk, Object[] values, BitSet mask) {
+            this.pk = pk;
+            this.values = values;
+            this.mask = mask;
+        }
+
+        /* 用 newer 中的列覆盖当前的值，返回合并后的结果 */
+        Pending overwrite(Pending newer) {
+            Object[] merged = values.clone();
+            BitSet mergedMask = (BitSet) mask.clone();
+            for (int i = newer.mask.nextSetBit(0); i >= 0; i = newer.mask.nextSetBit(i + 1)) {
+                merged[i] = newer.values[i];
+            }
+            mergedMask.or(newer.mask);
+            Pending result = new Pending(newer.pk, merged, mergedMask);
+            // 保留失败次数，持续收到新更新的错误数据仍会在达到上限后被丢弃
+            result.attempts = Math.max(attempts, newer.attempts);
+            return result;
+        }
+    }
+}